@@ -1,9 +1,11 @@
 package com.miguelgaeta.android_super_bar;
 
+import android.content.Intent;
 import android.os.Bundle;
 import android.os.Handler;
 import android.support.v7.app.AppCompatActivity;
 import android.util.Log;
+import android.view.View;
 
 import com.miguelgaeta.super_bar.SuperBar;
 
@@ -24,6 +26,15 @@ public class AppActivity extends AppCompatActivity {
             }
         });
 
+        findViewById(R.id.stress_button).setOnClickListener(new View.OnClickListener() {
+
+            @Override
+            public void onClick(View view) {
+
+                startActivity(new Intent(AppActivity.this, StressActivity.class));
+            }
+        });
+
         new Handler().postDelayed(new Runnable() {
             @Override
             public void run() {
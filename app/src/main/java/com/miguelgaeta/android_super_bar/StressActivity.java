@@ -0,0 +1,406 @@
+package com.miguelgaeta.android_super_bar;
+
+import android.os.Build;
+import android.os.Bundle;
+import android.os.Handler;
+import android.support.v7.app.AppCompatActivity;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.util.Log;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewConfiguration;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+import android.widget.LinearLayout;
+import android.widget.TextView;
+
+import com.miguelgaeta.super_bar.SuperBar;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs super bar stress scenarios and writes a frame timing
+ * report for each one so changes can be compared on the
+ * same device.
+ *
+ * Scenarios can also be started from the command line:
+ *
+ * adb shell am start -n com.miguelgaeta.android_super_bar/.StressActivity -e scenario list
+ */
+public class StressActivity extends AppCompatActivity {
+
+    public static final String EXTRA_SCENARIO = "scenario";
+
+    private static final String SCENARIO_LIST = "list";
+    private static final String SCENARIO_ANIMATE = "animate";
+    private static final String SCENARIO_PRODUCER = "producer";
+
+    private static final long SCENARIO_DURATION_MILLIS = 10000;
+
+    private static final int LIST_BAR_COUNT = 1000;
+    private static final long LIST_FLING_INTERVAL_MILLIS = 1000;
+
+    private static final int ANIMATE_BAR_COUNT = 100;
+    private static final int ANIMATE_DURATION_MILLIS = 900;
+
+    private static final long PRODUCER_INTERVAL_NANOS = 1000000;
+
+    private final Handler handler = new Handler();
+
+    private final Random random = new Random();
+
+    private FrameLayout container;
+    private TextView status;
+
+    private String scenario;
+
+    private StressFrameStats frameStats;
+
+    private Runnable scenarioTick;
+
+    private SuperBar producerBar;
+
+    private Thread producer;
+    private volatile boolean producing;
+    private volatile float producerValue;
+    private int producerUpdates;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+
+        setContentView(R.layout.stress_activity);
+
+        container = (FrameLayout)findViewById(R.id.stress_container);
+        status = (TextView)findViewById(R.id.stress_status);
+
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN) {
+
+            status.setText("Frame timing requires API 16.");
+
+            return;
+        }
+
+        bindScenarioButton(R.id.stress_list_button, SCENARIO_LIST);
+        bindScenarioButton(R.id.stress_animate_button, SCENARIO_ANIMATE);
+        bindScenarioButton(R.id.stress_producer_button, SCENARIO_PRODUCER);
+
+        if (getIntent().getStringExtra(EXTRA_SCENARIO) != null) {
+
+            startScenario(getIntent().getStringExtra(EXTRA_SCENARIO));
+        }
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+
+        stopScenario();
+    }
+
+    private void bindScenarioButton(int buttonId, final String scenario) {
+
+        findViewById(buttonId).setOnClickListener(new View.OnClickListener() {
+
+            @Override
+            public void onClick(View view) {
+
+                startScenario(scenario);
+            }
+        });
+    }
+
+    private void startScenario(String scenario) {
+
+        stopScenario();
+
+        container.removeAllViews();
+
+        if (SCENARIO_LIST.equals(scenario)) {
+
+            createListScenario();
+
+        } else if (SCENARIO_ANIMATE.equals(scenario)) {
+
+            createAnimateScenario();
+
+        } else if (SCENARIO_PRODUCER.equals(scenario)) {
+
+            createProducerScenario();
+
+        } else {
+
+            status.setText("Unknown scenario: " + scenario);
+
+            return;
+        }
+
+        this.scenario = scenario;
+
+        status.setText("Running " + scenario + "...");
+
+        frameStats = new StressFrameStats(getWindowManager().getDefaultDisplay().getRefreshRate());
+        frameStats.start();
+
+        handler.postDelayed(finishScenario, SCENARIO_DURATION_MILLIS);
+    }
+
+    private void stopScenario() {
+
+        handler.removeCallbacks(finishScenario);
+
+        if (scenarioTick != null) {
+
+            handler.removeCallbacks(scenarioTick);
+
+            scenarioTick = null;
+        }
+
+        if (producer != null) {
+
+            producing = false;
+
+            producer.interrupt();
+            producer = null;
+
+            handler.removeCallbacks(producerUpdate);
+        }
+
+        if (frameStats != null) {
+
+            frameStats.stop();
+            frameStats = null;
+        }
+
+        scenario = null;
+    }
+
+    private final Runnable finishScenario = new Runnable() {
+
+        @Override
+        public void run() {
+
+            final String scenario = StressActivity.this.scenario;
+
+            final StressFrameStats frameStats = StressActivity.this.frameStats;
+
+            final int producerUpdates = StressActivity.this.producerUpdates;
+
+            stopScenario();
+
+            try {
+
+                final JSONObject report = frameStats.toReport(scenario, SCENARIO_DURATION_MILLIS);
+
+                if (SCENARIO_PRODUCER.equals(scenario)) {
+
+                    report.put("producerUpdates", producerUpdates);
+                }
+
+                final File file = writeReport(scenario, report);
+
+                status.setText(report.toString(2) + "\n\n" + file.getAbsolutePath());
+
+                Log.i("Super Bar", "Stress report " + file.getAbsolutePath() + ": " + report);
+
+            } catch (JSONException e) {
+
+                status.setText("Failed to create report: " + e.getMessage());
+
+            } catch (IOException e) {
+
+                status.setText("Failed to write report: " + e.getMessage());
+            }
+        }
+    };
+
+    private File writeReport(String scenario, JSONObject report) throws JSONException, IOException {
+
+        File directory = getExternalFilesDir(null);
+
+        if (directory == null) {
+
+            directory = getFilesDir();
+        }
+
+        final File file = new File(directory, "super-bar-stress-" + scenario + ".json");
+
+        final FileWriter writer = new FileWriter(file);
+
+        try {
+
+            writer.write(report.toString(2));
+
+        } finally {
+
+            writer.close();
+        }
+
+        return file;
+    }
+
+    /**
+     * A long list of bars flung up and down continuously.
+     */
+    private void createListScenario() {
+
+        final RecyclerView list = new RecyclerView(this);
+
+        list.setLayoutManager(new LinearLayoutManager(this));
+        list.setAdapter(new BarAdapter());
+
+        container.addView(list);
+
+        final int flingVelocity = ViewConfiguration.get(this).getScaledMaximumFlingVelocity();
+
+        scenarioTick = new Runnable() {
+
+            private int direction = 1;
+
+            @Override
+            public void run() {
+
+                list.fling(0, direction * flingVelocity);
+
+                direction = -direction;
+
+                handler.postDelayed(this, LIST_FLING_INTERVAL_MILLIS);
+            }
+        };
+
+        handler.post(scenarioTick);
+    }
+
+    /**
+     * Many bars animating their value and overlay at once.
+     */
+    private void createAnimateScenario() {
+
+        final LinearLayout column = new LinearLayout(this);
+
+        column.setOrientation(LinearLayout.VERTICAL);
+
+        final SuperBar[] bars = new SuperBar[ANIMATE_BAR_COUNT];
+
+        for (int i = 0; i < bars.length; i++) {
+
+            bars[i] = new SuperBar(this);
+
+            column.addView(bars[i], new LinearLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, 0, 1f));
+        }
+
+        container.addView(column);
+
+        scenarioTick = new Runnable() {
+
+            @Override
+            public void run() {
+
+                for (SuperBar bar : bars) {
+
+                    bar.getConfig().setBarValue(ANIMATE_DURATION_MILLIS, random.nextFloat() * 100f);
+                    bar.getConfig().setOverlayBarValue(ANIMATE_DURATION_MILLIS, random.nextFloat() * 100f);
+                }
+
+                handler.postDelayed(this, ANIMATE_DURATION_MILLIS + 100);
+            }
+        };
+
+        handler.post(scenarioTick);
+    }
+
+    /**
+     * A single bar fed by a background producer at 1 kHz.
+     */
+    private void createProducerScenario() {
+
+        final SuperBar bar = (SuperBar)LayoutInflater.from(this).inflate(R.layout.stress_row, container, false);
+
+        container.addView(bar);
+
+        producerBar = bar;
+        producerUpdates = 0;
+        producing = true;
+
+        producer = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+
+                long nextTimeNanos = System.nanoTime();
+
+                float value = 0f;
+
+                while (producing) {
+
+                    value = (value + 0.01f) % 100f;
+
+                    producerValue = value;
+
+                    handler.post(producerUpdate);
+
+                    nextTimeNanos += PRODUCER_INTERVAL_NANOS;
+
+                    LockSupport.parkNanos(nextTimeNanos - System.nanoTime());
+                }
+            }
+        }, "SuperBarProducer");
+
+        producer.start();
+    }
+
+    private final Runnable producerUpdate = new Runnable() {
+
+        @Override
+        public void run() {
+
+            if (producing) {
+
+                producerBar.getConfig().setBarValue(null, producerValue);
+
+                producerUpdates++;
+            }
+        }
+    };
+
+    private class BarAdapter extends RecyclerView.Adapter<BarHolder> {
+
+        @Override
+        public BarHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+
+            return new BarHolder((SuperBar)LayoutInflater.from(parent.getContext()).inflate(R.layout.stress_row, parent, false));
+        }
+
+        @Override
+        public void onBindViewHolder(BarHolder holder, int position) {
+
+            holder.bar.getConfig().setBarValue(null, (position * 37) % 100);
+            holder.bar.getConfig().setOverlayBarValue((position * 53) % 100);
+        }
+
+        @Override
+        public int getItemCount() {
+
+            return LIST_BAR_COUNT;
+        }
+    }
+
+    private static class BarHolder extends RecyclerView.ViewHolder {
+
+        private final SuperBar bar;
+
+        BarHolder(SuperBar bar) {
+            super(bar);
+
+            this.bar = bar;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.miguelgaeta.android_super_bar;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.view.Choreographer;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Arrays;
+
+/**
+ * Records the time between consecutive frames while
+ * a stress scenario runs.
+ */
+@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+class StressFrameStats implements Choreographer.FrameCallback {
+
+    private final long frameIntervalNanos;
+
+    private long[] frameDurations = new long[1024];
+    private int frameCount;
+
+    private long lastFrameTimeNanos;
+
+    private boolean running;
+
+    /**
+     * @param refreshRate Display refresh rate in frames per second.
+     */
+    StressFrameStats(float refreshRate) {
+
+        this.frameIntervalNanos = (long)(1000000000L / refreshRate);
+    }
+
+    void start() {
+
+        running = true;
+
+        frameCount = 0;
+        lastFrameTimeNanos = 0;
+
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    void stop() {
+
+        running = false;
+
+        Choreographer.getInstance().removeFrameCallback(this);
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+
+        if (!running) {
+
+            return;
+        }
+
+        if (lastFrameTimeNanos != 0) {
+
+            if (frameCount == frameDurations.length) {
+
+                frameDurations = Arrays.copyOf(frameDurations, frameCount * 2);
+            }
+
+            frameDurations[frameCount++] = frameTimeNanos - lastFrameTimeNanos;
+        }
+
+        lastFrameTimeNanos = frameTimeNanos;
+
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    /**
+     * A frame is janky when it took longer than one and a half
+     * display refresh intervals, meaning at least one vsync was missed.
+     *
+     * @param scenario Scenario name.
+     * @param durationMillis Scenario run time.
+     *
+     * @return Machine readable report.
+     */
+    JSONObject toReport(String scenario, long durationMillis) throws JSONException {
+
+        final long[] sorted = Arrays.copyOf(frameDurations, frameCount);
+
+        Arrays.sort(sorted);
+
+        int jankyFrames = 0;
+        long missedFrames = 0;
+
+        for (long frameDuration : sorted) {
+
+            if (frameDuration > frameIntervalNanos * 3 / 2) {
+
+                jankyFrames++;
+
+                missedFrames += Math.round(frameDuration / (double)frameIntervalNanos) - 1;
+            }
+        }
+
+        final JSONObject report = new JSONObject();
+
+        report.put("scenario", scenario);
+        report.put("device", Build.MANUFACTURER + " " + Build.MODEL);
+        report.put("sdk", Build.VERSION.SDK_INT);
+        report.put("durationMillis", durationMillis);
+        report.put("frameIntervalMillis", toMillis(frameIntervalNanos));
+        report.put("frames", frameCount);
+        report.put("jankyFrames", jankyFrames);
+        report.put("missedFrames", missedFrames);
+        report.put("p50Millis", toMillis(percentile(sorted, 0.50)));
+        report.put("p95Millis", toMillis(percentile(sorted, 0.95)));
+        report.put("p99Millis", toMillis(percentile(sorted, 0.99)));
+        report.put("maxMillis", toMillis(sorted.length > 0 ? sorted[sorted.length - 1] : 0));
+
+        return report;
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+
+        if (sorted.length == 0) {
+
+            return 0;
+        }
+
+        return sorted[Math.min(sorted.length - 1, (int)Math.ceil(percentile * sorted.length) - 1)];
+    }
+
+    private static double toMillis(long nanos) {
+
+        return Math.round(nanos / 10000.0) / 100.0;
+    }
+}
@@ -1,11 +1,18 @@
 package com.miguelgaeta.super_bar;
 
 import android.animation.ValueAnimator;
+import android.annotation.TargetApi;
 import android.content.Context;
 import android.graphics.Canvas;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.Parcel;
+import android.os.Parcelable;
 import android.util.AttributeSet;
 import android.view.MotionEvent;
 import android.view.View;
+import android.view.accessibility.AccessibilityEvent;
+import android.view.accessibility.AccessibilityNodeInfo;
 
 /**
  * A value bar with style.
@@ -50,6 +57,122 @@ public class SuperBar extends View implements ValueAnimator.AnimatorUpdateListen
         }
     }
 
+    public interface ValueScale {
+
+        /**
+         * Map a relative position along the bar to a value, must
+         * never decrease as the position grows.
+         *
+         * @param fraction Relative position along the bar from 0 to 1.
+         *
+         * @param minValue Minimum value the bar can display.
+         * @param maxValue Maximum value the bar can display.
+         *
+         * @return Value at the position.
+         */
+        float getValue(float fraction, float minValue, float maxValue);
+
+        /**
+         * Default scale that maps values evenly along the bar.
+         */
+        class Linear implements ValueScale {
+
+            @Override
+            public float getValue(float fraction, float minValue, float maxValue) {
+
+                return minValue + (maxValue - minValue) * fraction;
+            }
+        }
+
+        /**
+         * Logarithmic scale for volume, zoom or frequency style
+         * values, falls back to an offset logarithm when the
+         * minimum value is not positive.
+         */
+        class Logarithmic implements ValueScale {
+
+            @Override
+            public float getValue(float fraction, float minValue, float maxValue) {
+
+                if (minValue > 0f) {
+
+                    return (float)(minValue * Math.pow(maxValue / minValue, fraction));
+                }
+
+                return minValue + (float)Math.expm1(Math.log1p(maxValue - minValue) * fraction);
+            }
+        }
+
+        /**
+         * Piecewise linear scale through custom stops, the stops are
+         * spread evenly along the bar unless positions are provided
+         * and should start and end at the bar value bounds.
+         */
+        class Stops implements ValueScale {
+
+            private final float[] values;
+            private final float[] positions;
+
+            /**
+             * @param values Ascending values, at least two.
+             */
+            public Stops(float... values) {
+
+                this(values, null);
+            }
+
+            /**
+             * @param values Ascending values, at least two.
+             * @param positions Ascending relative positions from 0 to 1, null for evenly spaced.
+             */
+            public Stops(float[] values, float[] positions) {
+
+                if (values == null || values.length < 2) {
+
+                    throw new IllegalArgumentException("Scale needs at least two stops.");
+                }
+
+                if (positions == null) {
+
+                    positions = new float[values.length];
+
+                    for (int i = 0; i < positions.length; i++) {
+
+                        positions[i] = i / (float)(positions.length - 1);
+                    }
+
+                } else if (positions.length != values.length) {
+
+                    throw new IllegalArgumentException("Scale positions must match values.");
+                }
+
+                this.values = values.clone();
+                this.positions = positions.clone();
+            }
+
+            @Override
+            public float getValue(float fraction, float minValue, float maxValue) {
+
+                if (fraction <= positions[0]) {
+
+                    return values[0];
+                }
+
+                for (int i = 1; i < positions.length; i++) {
+
+                    if (fraction <= positions[i]) {
+
+                        float span = positions[i] - positions[i - 1];
+
+                        return span > 0f ? values[i - 1] + (values[i] - values[i - 1]) * (fraction - positions[i - 1]) / span : values[i];
+                    }
+                }
+
+                return values[values.length - 1];
+            }
+        }
+    }
+
     public interface OnSelectionChanged {
 
         /**
@@ -85,80 +208,195 @@ public class SuperBar extends View implements ValueAnimator.AnimatorUpdateListen
 
     final SuperBarPainter paint = new SuperBarPainter(this);
 
+    final SuperBarCanvasRenderer renderer = new SuperBarCanvasRenderer(paint);
+
     final SuperBarDrawer drawer = new SuperBarDrawer(this);
 
+    final SuperBarTouch touch = new SuperBarTouch(this);
+
     final SuperBarConfig config = new SuperBarConfig(this);
 
+    final SuperBarAnimator animator = new SuperBarAnimator(this);
+
+    final SuperBarKnobLayer knobLayer = new SuperBarKnobLayer(this);
+
+    final SuperBarAccessibility accessibility = new SuperBarAccessibility(this);
+
     @SuppressWarnings("unused")
     public SuperBarConfig getConfig() {
 
         return config;
     }
 
+    /**
+     * Constructors only parse attributes and touch no window or
+     * looper state, so bars can be built on a background thread
+     * by an asynchronous layout inflater.
+     */
     public SuperBar(Context context) {
         super(context);
-
-        init();
     }
 
     public SuperBar(Context context, AttributeSet attrs) {
         super(context, attrs);
 
         this.attrs.parse(attrs, 0);
-
-        init();
     }
 
     public SuperBar(Context context, AttributeSet attrs, int defStyleAttr) {
         super(context, attrs, defStyleAttr);
 
         this.attrs.parse(attrs, defStyleAttr);
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+
+        // Needed for the control shadow, deferred from construction
+        // and skipped if a layer type was already chosen.
+        if (getLayerType() == View.LAYER_TYPE_NONE) {
+
+            setLayerType(View.LAYER_TYPE_SOFTWARE, null);
+        }
 
-        init();
+        if (config.isKnobLayerEnabled()) {
+
+            knobLayer.attach();
+        }
     }
 
-    private void init() {
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
 
-        setLayerType(View.LAYER_TYPE_SOFTWARE, null);
+        animator.finish();
 
-        setOnTouchListener(new OnTouchListener() {
+        knobLayer.detach();
 
-            @Override
-            public boolean onTouch(View view, MotionEvent motionEvent) {
+        accessibility.cancel();
+    }
 
-                view.getParent().requestDisallowInterceptTouchEvent(true);
+    /**
+     * Save the bar value, overlay value, thumbs and any running
+     * animation so a recreated bar picks up where it left off.
+     *
+     * @return Saved state.
+     */
+    @Override
+    protected Parcelable onSaveInstanceState() {
 
-                switch (motionEvent.getAction() & MotionEvent.ACTION_MASK) {
+        final SavedState savedState = new SavedState(super.onSaveInstanceState());
 
-                    case MotionEvent.ACTION_UP:
+        savedState.values = new float[] {config.getBarValue(), config.getOverlayBarValue()};
+        savedState.animationValues = new float[SuperBarAnimator.STATE_SIZE];
+        savedState.animationTimes = new long[SuperBarAnimator.STATE_SIZE];
+        savedState.thumbValues = config.getThumbValues();
 
-                        view.getParent().requestDisallowInterceptTouchEvent(false);
+        animator.save(savedState.animationValues, savedState.animationTimes);
 
-                        break;
-                }
+        return savedState;
+    }
 
-                return false;
-            }
-        });
+    /**
+     * Restore values and resume running animations from where they
+     * were saved instead of starting them over.
+     *
+     * @param state Saved state.
+     */
+    @Override
+    protected void onRestoreInstanceState(Parcelable state) {
+
+        if (!(state instanceof SavedState)) {
+
+            super.onRestoreInstanceState(state);
+
+            return;
+        }
+
+        final SavedState savedState = (SavedState)state;
+
+        super.onRestoreInstanceState(savedState.getSuperState());
+
+        animator.finish();
+
+        config.setAnimatedValue(SuperBarAnimator.CHANNEL_BAR, savedState.values[0]);
+        config.setAnimatedValue(SuperBarAnimator.CHANNEL_OVERLAY, savedState.values[1]);
+        config.setThumbValues(savedState.thumbValues);
+
+        animator.restore(savedState.animationValues, savedState.animationTimes);
     }
 
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
 
-        drawer.draw(canvas);
+        renderer.setCanvas(canvas);
+
+        drawer.draw(renderer);
     }
 
     /**
-     * When an animation ticks, invalidate the view
-     * so on draw is called again.
+     * When an animation ticks, step every animated value
+     * and invalidate the view once so on draw is called again,
+     * skipped when capped or nothing would render differently.
      *
      * @param valueAnimator Value animator.
      */
     @Override
     public void onAnimationUpdate(ValueAnimator valueAnimator) {
 
-        invalidate();
+        if (!animator.step()) {
+
+            return;
+        }
+
+        knobLayer.sync();
+
+        if (drawer.hasRenderedChange()) {
+
+            invalidate();
+        }
+    }
+
+    /**
+     * Value change events report the bar value as a percentage.
+     *
+     * @param event Event to fill.
+     */
+    @Override
+    public void onInitializeAccessibilityEvent(AccessibilityEvent event) {
+        super.onInitializeAccessibilityEvent(event);
+
+        accessibility.onInitializeEvent(event);
+    }
+
+    /**
+     * Reports the bar as a range with its value and bounds, and
+     * scroll actions when the bar accepts input.
+     *
+     * @param info Node info to fill.
+     */
+    @Override
+    public void onInitializeAccessibilityNodeInfo(AccessibilityNodeInfo info) {
+        super.onInitializeAccessibilityNodeInfo(info);
+
+        accessibility.onInitializeNodeInfo(info);
+    }
+
+    /**
+     * Scroll forward and backward actions step the bar value by the bar interval.
+     *
+     * @param action Accessibility action.
+     * @param arguments Action arguments.
+     *
+     * @return True if the action was performed.
+     */
+    @Override
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    public boolean performAccessibilityAction(int action, Bundle arguments) {
+
+        return accessibility.performAction(action) || super.performAccessibilityAction(action, arguments);
     }
 
     /**
@@ -178,6 +416,55 @@ public class SuperBar extends View implements ValueAnimator.AnimatorUpdateListen
             return super.onTouchEvent(motionEvent);
         }
 
-        return drawer.onTouchEvent(motionEvent);
+        return touch.onTouchEvent(motionEvent);
+    }
+
+    /**
+     * Dynamic state of a bar packed into primitive arrays.
+     */
+    public static class SavedState extends BaseSavedState {
+
+        private float[] values;
+        private float[] animationValues;
+        private long[] animationTimes;
+        private float[] thumbValues;
+
+        SavedState(Parcelable superState) {
+            super(superState);
+        }
+
+        private SavedState(Parcel source) {
+            super(source);
+
+            values = source.createFloatArray();
+            animationValues = source.createFloatArray();
+            animationTimes = source.createLongArray();
+            thumbValues = source.createFloatArray();
+        }
+
+        @Override
+        public void writeToParcel(Parcel dest, int flags) {
+            super.writeToParcel(dest, flags);
+
+            dest.writeFloatArray(values);
+            dest.writeFloatArray(animationValues);
+            dest.writeLongArray(animationTimes);
+            dest.writeFloatArray(thumbValues);
+        }
+
+        public static final Parcelable.Creator<SavedState> CREATOR = new Parcelable.Creator<SavedState>() {
+
+            @Override
+            public SavedState createFromParcel(Parcel source) {
+
+                return new SavedState(source);
+            }
+
+            @Override
+            public SavedState[] newArray(int size) {
+
+                return new SavedState[size];
+            }
+        };
     }
 }
@@ -0,0 +1,237 @@
+package com.miguelgaeta.super_bar;
+
+import android.content.Context;
+import android.os.Build;
+import android.os.SystemClock;
+import android.view.accessibility.AccessibilityEvent;
+import android.view.accessibility.AccessibilityManager;
+import android.view.accessibility.AccessibilityNodeInfo;
+
+/**
+ * Exposes the bar value to accessibility services as a range and
+ * coalesces value change events so drags and animations send at
+ * most one event per interval, plus a final one once the value settles.
+ *
+ * Multi thumb bars report and step the dragged thumb, or the
+ * first thumb when none is being dragged.
+ */
+class SuperBarAccessibility implements Runnable {
+
+    /**
+     * Minimum time between value change events.
+     */
+    private static final long EVENT_INTERVAL_MILLIS = 200;
+
+    /**
+     * Scroll step as a fraction of the bar range when no bar interval is set.
+     */
+    private static final float DEFAULT_STEP_FRACTION = 0.05f;
+
+    private final SuperBar sb;
+
+    private AccessibilityManager manager;
+
+    private boolean eventPending;
+
+    private long eventTime;
+    private float eventValue = Float.NaN;
+
+    SuperBarAccessibility(SuperBar superBar) {
+
+        this.sb = superBar;
+    }
+
+    /**
+     * Schedule a value change event, changes arriving before
+     * it is sent are folded into the same event.
+     */
+    void onValueChanged() {
+
+        // Detached bars, including ones inflated off the main
+        // thread, must not post since nothing would run it.
+        if (eventPending || sb.getWindowToken() == null || !sb.isShown() || !isEnabled()) {
+
+            return;
+        }
+
+        eventPending = true;
+
+        sb.postDelayed(this, Math.max(0, eventTime + EVENT_INTERVAL_MILLIS - SystemClock.uptimeMillis()));
+    }
+
+    /**
+     * Send any pending value change right away, called when a drag
+     * ends or an animation reaches its target.
+     */
+    void onValueSettled() {
+
+        if (!isEnabled()) {
+
+            return;
+        }
+
+        cancel();
+
+        sendEvent();
+    }
+
+    void cancel() {
+
+        if (eventPending) {
+
+            eventPending = false;
+
+            sb.removeCallbacks(this);
+        }
+    }
+
+    @Override
+    public void run() {
+
+        eventPending = false;
+
+        sendEvent();
+    }
+
+    void onInitializeEvent(AccessibilityEvent event) {
+
+        event.setClassName(getClassName());
+
+        final float range = sb.config.getMaxBarValue() - sb.config.getMinBarValue();
+
+        event.setItemCount(100);
+        event.setCurrentItemIndex(range > 0 ? Math.round((getValue() - sb.config.getMinBarValue()) / range * 100) : 0);
+    }
+
+    void onInitializeNodeInfo(AccessibilityNodeInfo info) {
+
+        info.setClassName(getClassName());
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+
+            info.setRangeInfo(AccessibilityNodeInfo.RangeInfo.obtain(
+                AccessibilityNodeInfo.RangeInfo.RANGE_TYPE_FLOAT,
+                sb.config.getMinBarValue(),
+                sb.config.getMaxBarValue(),
+                getValue()));
+        }
+
+        if (sb.config.isTouchEnabled() && sb.isEnabled()) {
+
+            info.setScrollable(true);
+
+            if (getValue() > sb.config.getMinBarValue()) {
+
+                info.addAction(AccessibilityNodeInfo.ACTION_SCROLL_BACKWARD);
+            }
+
+            if (getValue() < sb.config.getMaxBarValue()) {
+
+                info.addAction(AccessibilityNodeInfo.ACTION_SCROLL_FORWARD);
+            }
+        }
+    }
+
+    /**
+     * Step the bar value by the bar interval for scroll actions,
+     * reported to the selection changed listener like a drag.
+     *
+     * @return True if the action was handled.
+     */
+    boolean performAction(int action) {
+
+        if (!sb.config.isTouchEnabled() || !sb.isEnabled()) {
+
+            return false;
+        }
+
+        final float step = sb.config.getBarInterval() > 0 ? sb.config.getBarInterval() :
+            (sb.config.getMaxBarValue() - sb.config.getMinBarValue()) * DEFAULT_STEP_FRACTION;
+
+        switch (action) {
+
+            case AccessibilityNodeInfo.ACTION_SCROLL_FORWARD:
+
+                return stepValue(step);
+
+            case AccessibilityNodeInfo.ACTION_SCROLL_BACKWARD:
+
+                return stepValue(-step);
+        }
+
+        return false;
+    }
+
+    private boolean stepValue(float step) {
+
+        final float value = getValue();
+
+        if (sb.config.getThumbs().size() > 0) {
+
+            sb.config.setThumbValue(getThumbIndex(), value + step);
+
+        } else {
+
+            sb.config.setBarValue(null, value + step);
+        }
+
+        if (getValue() == value) {
+
+            return false;
+        }
+
+        if (sb.config.getOnSelectionChanged() != null) {
+            sb.config.getOnSelectionChanged().onSelectionChanged(
+                getValue(),
+                sb.config.getMaxBarValue(),
+                sb.config.getMinBarValue(), sb);
+        }
+
+        onValueSettled();
+
+        return true;
+    }
+
+    private void sendEvent() {
+
+        if (getValue() == eventValue) {
+
+            return;
+        }
+
+        eventValue = getValue();
+        eventTime = SystemClock.uptimeMillis();
+
+        sb.sendAccessibilityEvent(AccessibilityEvent.TYPE_VIEW_SELECTED);
+    }
+
+    /**
+     * @return Value announced for the bar, the reported thumb on multi thumb bars.
+     */
+    private float getValue() {
+
+        final SuperBarThumbs thumbs = sb.config.getThumbs();
+
+        return thumbs.size() > 0 ? thumbs.get(getThumbIndex()) : sb.config.getBarValue();
+    }
+
+    private int getThumbIndex() {
+
+        return Math.max(0, sb.config.getThumbs().getActiveIndex());
+    }
+
+    private boolean isEnabled() {
+
+        if (manager == null) {
+
+            manager = (AccessibilityManager)sb.getContext().getSystemService(Context.ACCESSIBILITY_SERVICE);
+        }
+
+        return manager != null && manager.isEnabled();
+    }
+
+    private CharSequence getClassName() {
+
+        return sb.config.isTouchEnabled() ? "android.widget.SeekBar" : "android.widget.ProgressBar";
+    }
+}
@@ -0,0 +1,394 @@
+package com.miguelgaeta.super_bar;
+
+import android.animation.ValueAnimator;
+import android.content.ContentResolver;
+import android.content.Context;
+import android.os.Build;
+import android.os.PowerManager;
+import android.os.SystemClock;
+import android.provider.Settings;
+import android.view.animation.AccelerateDecelerateInterpolator;
+import android.view.animation.AnimationUtils;
+import android.view.animation.Interpolator;
+
+/**
+ * Single animation driver for every animated value of
+ * the super bar, all values are stepped in the same
+ * frame tick so the bar is only invalidated once.
+ */
+class SuperBarAnimator {
+
+    static final int CHANNEL_BAR = 0;
+    static final int CHANNEL_OVERLAY = 1;
+
+    private static final int CHANNEL_COUNT = 2;
+
+    /**
+     * Slots per saved state array, two for each channel.
+     */
+    static final int STATE_SIZE = CHANNEL_COUNT * 2;
+
+    /**
+     * Frames arrive on vsync so allow a little slack
+     * when comparing against the frame rate cap.
+     */
+    private static final long FRAME_SLACK_MILLIS = 2;
+
+    /**
+     * How long the system animation settings are
+     * trusted before being read again.
+     */
+    private static final long SETTINGS_TIMEOUT_MILLIS = 1000;
+
+    private static final Interpolator interpolator = new AccelerateDecelerateInterpolator();
+
+    private static long settingsReadTime = -SETTINGS_TIMEOUT_MILLIS;
+    private static boolean settingsAnimationsEnabled = true;
+    private static float settingsDurationScale = 1f;
+
+    private final SuperBar sb;
+
+    private final float[] from = new float[CHANNEL_COUNT];
+    private final float[] to = new float[CHANNEL_COUNT];
+
+    private final long[] startTime = new long[CHANNEL_COUNT];
+    private final long[] duration = new long[CHANNEL_COUNT];
+
+    /**
+     * Durations as requested, before the system duration scale.
+     */
+    private final long[] requestedDuration = new long[CHANNEL_COUNT];
+
+    private final boolean[] running = new boolean[CHANNEL_COUNT];
+
+    private long frameTime;
+
+    private ValueAnimator driver;
+
+    SuperBarAnimator(SuperBar superBar) {
+
+        this.sb = superBar;
+    }
+
+    /**
+     * Animate a channel between two values, replacing any
+     * animation already running on that channel.
+     *
+     * If animations are turned off system wide or battery
+     * saver is on the channel jumps straight to the target.
+     *
+     * @param channel Target channel.
+     * @param valueFrom Starting value.
+     * @param valueTo Target value.
+     * @param durationMillis Duration in milliseconds.
+     */
+    void animate(int channel, float valueFrom, float valueTo, long durationMillis) {
+
+        if (!areAnimationsEnabled(sb.getContext())) {
+
+            cancel(channel);
+
+            sb.config.setAnimatedValue(channel, valueTo);
+
+            if (sb.drawer.hasRenderedChange()) {
+
+                sb.invalidate();
+            }
+
+            sb.knobLayer.sync();
+
+            if (channel == CHANNEL_BAR) {
+
+                sb.accessibility.onValueSettled();
+            }
+
+            return;
+        }
+
+        from[channel] = valueFrom;
+        to[channel] = valueTo;
+
+        startTime[channel] = AnimationUtils.currentAnimationTimeMillis();
+        requestedDuration[channel] = durationMillis;
+        duration[channel] = getScaledDuration(durationMillis);
+
+        running[channel] = true;
+
+        sb.config.setAnimatedValue(channel, valueFrom);
+
+        if (channel == CHANNEL_BAR) {
+
+            sb.knobLayer.animate(valueFrom, valueTo, durationMillis);
+        }
+
+        startDriver();
+    }
+
+    private void startDriver() {
+
+        if (driver == null) {
+
+            driver = ValueAnimator.ofFloat(0f, 1f);
+            driver.setDuration(1000);
+            driver.setRepeatCount(ValueAnimator.INFINITE);
+            driver.addUpdateListener(sb);
+        }
+
+        if (!driver.isStarted()) {
+
+            frameTime = 0;
+
+            driver.start();
+        }
+    }
+
+    /**
+     * Stop animating a channel, leaving its value where it is.
+     *
+     * @param channel Target channel.
+     */
+    void cancel(int channel) {
+
+        running[channel] = false;
+
+        if (channel == CHANNEL_BAR) {
+
+            sb.knobLayer.cancel();
+        }
+    }
+
+    /**
+     * Jump every running channel to its target value
+     * and stop the driver.
+     */
+    void finish() {
+
+        for (int channel = 0; channel < CHANNEL_COUNT; channel++) {
+
+            if (running[channel]) {
+
+                running[channel] = false;
+
+                sb.config.setAnimatedValue(channel, to[channel]);
+            }
+        }
+
+        if (driver != null) {
+
+            driver.cancel();
+        }
+
+        sb.knobLayer.cancel();
+    }
+
+    /**
+     * Save every channel as a from and to value pair and a duration
+     * and elapsed time pair, elapsed is negative if not running. Times
+     * are saved unscaled so a changed duration scale applies on restore.
+     *
+     * @param values Values of size {@link #STATE_SIZE}.
+     * @param times Times of size {@link #STATE_SIZE}.
+     */
+    void save(float[] values, long[] times) {
+
+        final long now = AnimationUtils.currentAnimationTimeMillis();
+
+        for (int channel = 0; channel < CHANNEL_COUNT; channel++) {
+
+            values[channel * 2] = from[channel];
+            values[channel * 2 + 1] = to[channel];
+
+            final long elapsed = Math.min(now - startTime[channel], duration[channel]);
+
+            times[channel * 2] = requestedDuration[channel];
+            times[channel * 2 + 1] = !running[channel] ? -1 :
+                duration[channel] > 0 ? elapsed * requestedDuration[channel] / duration[channel] : 0;
+        }
+    }
+
+    /**
+     * Resume channels saved while running at the point they
+     * were saved at, or jump them to their target value if
+     * animations are turned off.
+     *
+     * @param values Values written by {@link #save(float[], long[])}.
+     * @param times Times written by {@link #save(float[], long[])}.
+     */
+    void restore(float[] values, long[] times) {
+
+        final long now = AnimationUtils.currentAnimationTimeMillis();
+
+        final boolean animationsEnabled = areAnimationsEnabled(sb.getContext());
+
+        for (int channel = 0; channel < CHANNEL_COUNT; channel++) {
+
+            if (times[channel * 2 + 1] < 0) {
+
+                continue;
+            }
+
+            if (!animationsEnabled) {
+
+                cancel(channel);
+
+                sb.config.setAnimatedValue(channel, values[channel * 2 + 1]);
+
+                continue;
+            }
+
+            from[channel] = values[channel * 2];
+            to[channel] = values[channel * 2 + 1];
+
+            requestedDuration[channel] = times[channel * 2];
+            duration[channel] = getScaledDuration(requestedDuration[channel]);
+
+            startTime[channel] = now - (requestedDuration[channel] > 0 ?
+                times[channel * 2 + 1] * duration[channel] / requestedDuration[channel] : 0);
+
+            running[channel] = true;
+
+            startDriver();
+        }
+
+        sb.invalidate();
+    }
+
+    /**
+     * Step every running channel to the current frame time, frames
+     * inside the frame rate cap are skipped unless a channel is
+     * due to finish.
+     *
+     * @return True if any channel value was stepped.
+     */
+    boolean step() {
+
+        final long now = AnimationUtils.currentAnimationTimeMillis();
+
+        final int frameRate = sb.config.getAnimationFrameRate();
+
+        if (frameRate > 0 && now - frameTime < 1000 / frameRate - FRAME_SLACK_MILLIS && !isFinishing(now)) {
+
+            return false;
+        }
+
+        frameTime = now;
+
+        boolean active = false;
+
+        for (int channel = 0; channel < CHANNEL_COUNT; channel++) {
+
+            if (!running[channel]) {
+
+                continue;
+            }
+
+            float fraction = duration[channel] > 0 ? Math.max(0f, (now - startTime[channel]) / (float)duration[channel]) : 1f;
+
+            if (fraction >= 1f) {
+
+                fraction = 1f;
+
+                running[channel] = false;
+
+            } else {
+
+                active = true;
+            }
+
+            sb.config.setAnimatedValue(channel, from[channel] + (to[channel] - from[channel]) * interpolator.getInterpolation(fraction));
+
+            if (channel == CHANNEL_BAR && !running[channel]) {
+
+                sb.accessibility.onValueSettled();
+            }
+        }
+
+        if (!active && driver != null) {
+
+            driver.cancel();
+        }
+
+        return true;
+    }
+
+    private boolean isFinishing(long now) {
+
+        for (int channel = 0; channel < CHANNEL_COUNT; channel++) {
+
+            if (running[channel] && now - startTime[channel] >= duration[channel]) {
+
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Animations degrade to jump cuts when the animator duration
+     * scale is zero or battery saver is on.
+     *
+     * @param context Any context.
+     *
+     * @return True if animations should run.
+     */
+    private static boolean areAnimationsEnabled(Context context) {
+
+        readSettings(context);
+
+        return settingsAnimationsEnabled;
+    }
+
+    /**
+     * Scale a duration by the system animator duration scale
+     * like the framework animators do, so bars keep pace with
+     * the rest of the app.
+     *
+     * @param durationMillis Requested duration.
+     *
+     * @return Duration the animation actually runs for.
+     */
+    long getScaledDuration(long durationMillis) {
+
+        readSettings(sb.getContext());
+
+        return (long)(durationMillis * settingsDurationScale);
+    }
+
+    private static void readSettings(Context context) {
+
+        final long now = SystemClock.uptimeMillis();
+
+        if (now - settingsReadTime < SETTINGS_TIMEOUT_MILLIS) {
+
+            return;
+        }
+
+        settingsReadTime = now;
+        settingsDurationScale = getDurationScale(context.getContentResolver());
+        settingsAnimationsEnabled = settingsDurationScale > 0f && !isPowerSaveMode(context);
+    }
+
+    @SuppressWarnings("deprecation")
+    private static float getDurationScale(ContentResolver contentResolver) {
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+
+            return Settings.Global.getFloat(contentResolver, Settings.Global.ANIMATOR_DURATION_SCALE, 1f);
+        }
+
+        return Settings.System.getFloat(contentResolver, Settings.System.ANIMATOR_DURATION_SCALE, 1f);
+    }
+
+    private static boolean isPowerSaveMode(Context context) {
+
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) {
+
+            return false;
+        }
+
+        final PowerManager powerManager = (PowerManager)context.getSystemService(Context.POWER_SERVICE);
+
+        return powerManager != null && powerManager.isPowerSaveMode();
+    }
+}
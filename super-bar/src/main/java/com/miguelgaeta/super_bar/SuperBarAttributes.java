@@ -1,15 +1,32 @@
 package com.miguelgaeta.super_bar;
 
+import android.content.res.Configuration;
+import android.content.res.Resources;
 import android.content.res.TypedArray;
 import android.util.AttributeSet;
 
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
 /**
  * Handles parsing all xml attributes of the super bar.
  *
+ * Parsed attributes are cached per theme and style so every
+ * bar after the first with the same style skips the typed
+ * array lookups, this is safe on background inflation threads.
+ * A theme's entries are dropped when the resource configuration
+ * changes, themes survive in place configuration changes.
+ *
  * Created by Miguel Gaeta on 12/17/15.
  */
 class SuperBarAttributes {
 
+    private static final int[] styleableSorted = sortedCopy(R.styleable.SuperBar);
+
+    private static final Map<Resources.Theme, ThemeCache> cache = new WeakHashMap<Resources.Theme, ThemeCache>();
+
     private final SuperBar sb;
 
     /**
@@ -24,57 +41,264 @@ class SuperBarAttributes {
 
     void parse(AttributeSet attrs, int defStyleAttr) {
 
+        if (attrs != null && hasInlineAttributes(attrs)) {
+
+            read(attrs, defStyleAttr).apply(sb.getConfig());
+
+            return;
+        }
+
+        final Resources.Theme theme = sb.getContext().getTheme();
+
+        final Configuration configuration = sb.getResources().getConfiguration();
+
+        final long key = (long)(attrs != null ? attrs.getStyleAttribute() : 0) << 32 | (defStyleAttr & 0xffffffffL);
+
+        Values values;
+
+        synchronized (cache) {
+
+            ThemeCache themeCache = cache.get(theme);
+
+            if (themeCache == null || !themeCache.configuration.equals(configuration)) {
+
+                themeCache = new ThemeCache(configuration);
+
+                cache.put(theme, themeCache);
+            }
+
+            values = themeCache.values.get(key);
+
+            if (values == null) {
+
+                values = read(attrs, defStyleAttr);
+
+                themeCache.values.put(key, values);
+            }
+        }
+
+        values.apply(sb.getConfig());
+    }
+
+    /**
+     * Attributes set directly on the view tag differ per
+     * bar, so only style driven bars can be cached.
+     */
+    private static boolean hasInlineAttributes(AttributeSet attrs) {
+
+        for (int i = 0; i < attrs.getAttributeCount(); i++) {
+
+            if (Arrays.binarySearch(styleableSorted, attrs.getAttributeNameResource(i)) >= 0) {
+
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private Values read(AttributeSet attrs, int defStyleAttr) {
+
         final TypedArray array = sb.getContext().obtainStyledAttributes(attrs, R.styleable.SuperBar, defStyleAttr, 0);
 
         try {
 
             final SuperBarConfig config = sb.getConfig();
 
-            config.setBarValueBounds(
-                array.getFloat(R.styleable.SuperBar_sb_barValueMin, config.getMinBarValue()),
-                array.getFloat(R.styleable.SuperBar_sb_barValueMax, config.getMaxBarValue()));
+            final Values values = new Values();
+
+            values.minBarValue = array.getFloat(R.styleable.SuperBar_sb_barValueMin, config.getMinBarValue());
+            values.maxBarValue = array.getFloat(R.styleable.SuperBar_sb_barValueMax, config.getMaxBarValue());
+
+            values.barHeight = array.getDimensionPixelSize(R.styleable.SuperBar_sb_barHeight, 0);
 
-            config.setBarHeight(
-                array.getDimensionPixelSize(R.styleable.SuperBar_sb_barHeight, 0));
+            values.barInterval = array.getFloat(R.styleable.SuperBar_sb_barInterval,
+                config.getBarInterval());
 
-            config.setBarInterval(array.getFloat(R.styleable.SuperBar_sb_barInterval,
-                config.getBarInterval()));
+            values.logarithmic = array.getInt(R.styleable.SuperBar_sb_barValueScale, 0) == 1;
 
-            config.setColor(array.getColor(R.styleable.SuperBar_sb_barColor,
+            values.color = array.getColor(R.styleable.SuperBar_sb_barColor,
                 config.getColor().getColor(
                     config.getBarValue(),
                     config.getMaxBarValue(),
-                    config.getMinBarValue())));
+                    config.getMinBarValue()));
 
-            config.setBackgroundColor(array.getColor(R.styleable.SuperBar_sb_barBackgroundColor,
-                config.getBackgroundColor()));
+            values.backgroundColor = array.getColor(R.styleable.SuperBar_sb_barBackgroundColor,
+                config.getBackgroundColor());
 
-            config.setTouchEnabled(array.getBoolean(R.styleable.SuperBar_sb_barTouchEnabled, config.isTouchEnabled()));
+            values.gradient = parseGradient(array, R.styleable.SuperBar_sb_barGradient);
+            values.backgroundGradient = parseGradient(array, R.styleable.SuperBar_sb_barBackgroundGradient);
 
-            config.setOverlayBarValue(array.getFloat(R.styleable.SuperBar_sb_barOverlayValue, config.getOverlayBarValue()));
-            config.setOverlayBarColor(array.getColor(R.styleable.SuperBar_sb_barOverlayColor,
+            values.touchEnabled = array.getBoolean(R.styleable.SuperBar_sb_barTouchEnabled, config.isTouchEnabled());
+
+            values.overlayBarValue = array.getFloat(R.styleable.SuperBar_sb_barOverlayValue, config.getOverlayBarValue());
+            values.overlayBarColor = array.getColor(R.styleable.SuperBar_sb_barOverlayColor,
                 config.getOverlayBarColor().getColor(
                     config.getOverlayBarValue(),
                     config.getMaxBarValue(),
-                    config.getMinBarValue())));
+                    config.getMinBarValue()));
+            values.overlayBarGradient = parseGradient(array, R.styleable.SuperBar_sb_barOverlayGradient);
+
+            values.bufferedRangeColor = array.getColor(R.styleable.SuperBar_sb_barBufferedRangeColor,
+                config.getBufferedRangeColor());
+
+            values.controlRadius = array.getDimensionPixelSize(R.styleable.SuperBar_sb_barControlRadius, 0);
 
-            config.setControlRadius(array.getDimensionPixelSize(R.styleable.SuperBar_sb_barControlRadius, 0));
+            values.controlColor = array.getColor(R.styleable.SuperBar_sb_barControlColor,
+                config.getControlColor());
 
-            config.setControlColor(array.getColor(R.styleable.SuperBar_sb_barControlColor,
-                config.getControlColor()));
+            values.controlShadowColor = array.getColor(R.styleable.SuperBar_sb_barControlShadowColor,
+                config.getControlShadowColor());
 
-            config.setControlShadowColor(array.getColor(R.styleable.SuperBar_sb_barControlShadowColor,
-                config.getControlShadowColor()));
+            values.controlShadowRadius = array.getDimensionPixelSize(R.styleable.SuperBar_sb_barControlShadowRadius,
+                config.getControlShadowRadius());
 
-            config.setControlShadowRadius(array.getDimensionPixelSize(R.styleable.SuperBar_sb_barControlShadowRadius,
-                config.getControlShadowRadius()));
+            values.knobLayerEnabled = array.getBoolean(R.styleable.SuperBar_sb_barControlLayerEnabled,
+                config.isKnobLayerEnabled());
 
-            config.setBarValue(null, array.getFloat(R.styleable.SuperBar_sb_barValue,
-                config.getBarValue()));
+            values.barValue = array.getFloat(R.styleable.SuperBar_sb_barValue,
+                config.getBarValue());
+
+            return values;
 
         } finally {
 
             array.recycle();
         }
     }
+
+    /**
+     * Parse a gradient from an array resource of colors.
+     *
+     * @param array Styled attributes.
+     * @param index Attribute index.
+     *
+     * @return Gradient or null if not specified.
+     */
+    private SuperBarGradient parseGradient(TypedArray array, int index) {
+
+        final int resourceId = array.getResourceId(index, 0);
+
+        if (resourceId == 0) {
+
+            return null;
+        }
+
+        final TypedArray colorsArray = sb.getResources().obtainTypedArray(resourceId);
+
+        try {
+
+            final int[] colors = new int[colorsArray.length()];
+
+            for (int i = 0; i < colors.length; i++) {
+
+                colors[i] = colorsArray.getColor(i, 0);
+            }
+
+            return new SuperBarGradient(colors);
+
+        } finally {
+
+            colorsArray.recycle();
+        }
+    }
+
+    private static int[] sortedCopy(int[] values) {
+
+        final int[] sorted = values.clone();
+
+        Arrays.sort(sorted);
+
+        return sorted;
+    }
+
+    /**
+     * Parsed values of a theme and the configuration they were
+     * resolved for, copied since resources update theirs in place.
+     */
+    private static class ThemeCache {
+
+        private final Configuration configuration;
+
+        private final Map<Long, Values> values = new HashMap<Long, Values>();
+
+        ThemeCache(Configuration configuration) {
+
+            this.configuration = new Configuration(configuration);
+        }
+    }
+
+    /**
+     * Snapshot of parsed attributes, never modified once
+     * read so it can be shared by every bar with the same style.
+     */
+    private static class Values {
+
+        private float minBarValue;
+        private float maxBarValue;
+
+        private int barHeight;
+        private float barInterval;
+
+        private boolean logarithmic;
+
+        private int color;
+        private int backgroundColor;
+
+        private SuperBarGradient gradient;
+        private SuperBarGradient backgroundGradient;
+
+        private boolean touchEnabled;
+
+        private float overlayBarValue;
+        private int overlayBarColor;
+        private SuperBarGradient overlayBarGradient;
+
+        private int bufferedRangeColor;
+
+        private int controlRadius;
+        private int controlColor;
+        private int controlShadowColor;
+        private int controlShadowRadius;
+
+        private boolean knobLayerEnabled;
+
+        private float barValue;
+
+        void apply(SuperBarConfig config) {
+
+            config.setBarValueBounds(minBarValue, maxBarValue);
+
+            config.setBarHeight(barHeight);
+            config.setBarInterval(barInterval);
+
+            if (logarithmic) {
+
+                config.setValueScale(new SuperBar.ValueScale.Logarithmic());
+            }
+
+            config.setColor(color);
+            config.setBackgroundColor(backgroundColor);
+
+            config.setGradient(gradient);
+            config.setBackgroundGradient(backgroundGradient);
+
+            config.setTouchEnabled(touchEnabled);
+
+            config.setOverlayBarValue(overlayBarValue);
+            config.setOverlayBarColor(overlayBarColor);
+            config.setOverlayBarGradient(overlayBarGradient);
+
+            config.setBufferedRangeColor(bufferedRangeColor);
+
+            config.setControlRadius(controlRadius);
+            config.setControlColor(controlColor);
+            config.setControlShadowColor(controlShadowColor);
+            config.setControlShadowRadius(controlShadowRadius);
+
+            config.setKnobLayerEnabled(knobLayerEnabled);
+
+            config.setBarValue(null, barValue);
+        }
+    }
 }
@@ -0,0 +1,255 @@
+package com.miguelgaeta.super_bar;
+
+import android.graphics.Canvas;
+import android.graphics.Path;
+import android.graphics.RectF;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Default renderer drawing onto an android canvas, owns the
+ * cached track path, span paths and gradient shaders.
+ */
+class SuperBarCanvasRenderer implements SuperBarRenderer {
+
+    private final SuperBarPainter paint;
+
+    private final RectF rect = new RectF();
+
+    private final Path track = new Path();
+
+    private final SuperBarShaderCache.Slot[] shaders = {
+        new SuperBarShaderCache.Slot(),
+        new SuperBarShaderCache.Slot(),
+        new SuperBarShaderCache.Slot(),
+        new SuperBarShaderCache.Slot()
+    };
+
+    private final List<SpanPath> spanPaths = new ArrayList<SpanPath>(2);
+
+    private Canvas canvas;
+
+    SuperBarCanvasRenderer(SuperBarPainter paint) {
+
+        this.paint = paint;
+    }
+
+    /**
+     * Set the canvas of the frame being drawn.
+     */
+    void setCanvas(Canvas canvas) {
+
+        this.canvas = canvas;
+    }
+
+    /**
+     * Rebuild the cached rounded track path only
+     * when its bounds change.
+     */
+    @Override
+    public void setTrack(float left, float top, float right, float bottom) {
+
+        if (rect.left == left && rect.top == top && rect.right == right && rect.bottom == bottom && !track.isEmpty()) {
+
+            return;
+        }
+
+        rect.set(left, top, right, bottom);
+
+        track.rewind();
+        track.addRoundRect(rect, rect.height() / 2f, rect.height() / 2f, Path.Direction.CW);
+    }
+
+    @Override
+    public void setFill(int layer, int color, SuperBarGradient gradient) {
+
+        if (gradient != null) {
+
+            paint.setGradient(shaders[layer].get(gradient, rect.left, rect.right));
+        } else {
+
+            paint.setColor(color);
+        }
+    }
+
+    /**
+     * Paint a horizontal span of the track exactly once, the
+     * straight middle of the track is a plain rectangle while
+     * spans touching an end cap are clipped from the track path.
+     */
+    @Override
+    public void drawSpan(float spanLeft, float spanRight) {
+
+        if (spanRight <= spanLeft) {
+
+            return;
+        }
+
+        float capRadius = rect.height() / 2f;
+
+        if (spanLeft >= rect.left + capRadius && spanRight <= rect.right - capRadius) {
+
+            canvas.drawRect(spanLeft, rect.top, spanRight, rect.bottom, paint);
+
+        } else {
+
+            canvas.save();
+            canvas.clipRect(spanLeft, rect.top, spanRight, rect.bottom);
+            canvas.drawPath(track, paint);
+            canvas.restore();
+        }
+    }
+
+    /**
+     * Paint a batch of spans clipped to a region of the track, the
+     * straight spans are a single path and only spans touching
+     * an end cap are clipped from the track path one by one.
+     */
+    @Override
+    public void drawSpans(SuperBarSpans spans, float clipLeft, float clipRight) {
+
+        if (clipRight <= clipLeft) {
+
+            return;
+        }
+
+        final SpanPath spanPath = getSpanPath(spans);
+
+        canvas.save();
+        canvas.clipRect(clipLeft, rect.top, clipRight, rect.bottom);
+        canvas.drawPath(spanPath.path, paint);
+
+        for (int i = 0; i < spanPath.capCount; i += 2) {
+
+            if (spanPath.caps[i + 1] > clipLeft && spanPath.caps[i] < clipRight) {
+
+                canvas.save();
+                canvas.clipRect(spanPath.caps[i], rect.top, spanPath.caps[i + 1], rect.bottom);
+                canvas.drawPath(track, paint);
+                canvas.restore();
+            }
+        }
+
+        canvas.restore();
+    }
+
+    @Override
+    public boolean quickReject(float left, float top, float right, float bottom) {
+
+        return canvas.quickReject(left, top, right, bottom, Canvas.EdgeType.AA);
+    }
+
+    @Override
+    public void drawCircle(float centerX, float centerY, float radius, int color, int shadowRadius, int shadowColor) {
+
+        paint.setColor(color, shadowRadius, shadowColor);
+
+        canvas.drawCircle(centerX, centerY, radius, paint);
+    }
+
+    /**
+     * Path for a batch of spans, rebuilt only when the
+     * spans or the track bounds change.
+     */
+    private SpanPath getSpanPath(SuperBarSpans spans) {
+
+        SpanPath spanPath = null;
+
+        for (int i = 0; i < spanPaths.size(); i++) {
+
+            if (spanPaths.get(i).spans == spans) {
+
+                spanPath = spanPaths.get(i);
+            }
+        }
+
+        if (spanPath == null) {
+
+            spanPath = new SpanPath(spans);
+
+            spanPaths.add(spanPath);
+        }
+
+        spanPath.update(rect);
+
+        return spanPath;
+    }
+
+    /**
+     * Spans split into straight middle parts collected into one
+     * path and the parts over an end cap kept as pairs.
+     */
+    private static class SpanPath {
+
+        private final SuperBarSpans spans;
+
+        private final Path path = new Path();
+
+        private final RectF bounds = new RectF();
+
+        private int version = -1;
+
+        private float[] caps = new float[8];
+        private int capCount;
+
+        SpanPath(SuperBarSpans spans) {
+
+            this.spans = spans;
+        }
+
+        void update(RectF track) {
+
+            if (version == spans.getVersion() && bounds.equals(track)) {
+
+                return;
+            }
+
+            version = spans.getVersion();
+            bounds.set(track);
+
+            path.rewind();
+
+            capCount = 0;
+
+            for (int i = 0; i < spans.size(); i++) {
+
+                add(spans.getLeft(i), spans.getRight(i), track);
+            }
+        }
+
+        private void add(float spanLeft, float spanRight, RectF track) {
+
+            float center = (track.left + track.right) / 2f;
+
+            float straightLeft = Math.min(track.left + track.height() / 2f, center);
+            float straightRight = Math.max(track.right - track.height() / 2f, center);
+
+            if (spanLeft < straightLeft) {
+                addCap(spanLeft, Math.min(spanRight, straightLeft));
+            }
+
+            if (spanRight > straightRight) {
+                addCap(Math.max(spanLeft, straightRight), spanRight);
+            }
+
+            float left = Math.max(spanLeft, straightLeft);
+            float right = Math.min(spanRight, straightRight);
+
+            if (right > left) {
+                path.addRect(left, track.top, right, track.bottom, Path.Direction.CW);
+            }
+        }
+
+        private void addCap(float capLeft, float capRight) {
+
+            if (capCount + 2 > caps.length) {
+                caps = Arrays.copyOf(caps, caps.length * 2);
+            }
+
+            caps[capCount++] = capLeft;
+            caps[capCount++] = capRight;
+        }
+    }
+}
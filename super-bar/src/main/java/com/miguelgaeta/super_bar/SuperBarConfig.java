@@ -1,9 +1,7 @@
 package com.miguelgaeta.super_bar;
 
-import android.animation.ObjectAnimator;
 import android.graphics.Color;
 import android.view.GestureDetector;
-import android.view.animation.AccelerateDecelerateInterpolator;
 
 /**
  * Configurable properties of the super view.
@@ -12,6 +10,8 @@ import android.view.animation.AccelerateDecelerateInterpolator;
  */
 public class SuperBarConfig {
 
+    private static int defaultAnimationFrameRate;
+
     private final SuperBar superBar;
 
     SuperBarConfig(SuperBar superBar) {
@@ -30,23 +30,43 @@ public class SuperBarConfig {
 
     private float barInterval = 1f;
 
+    private int animationFrameRate;
+
+    private SuperBar.ValueScale valueScale = new SuperBar.ValueScale.Linear();
+
     private int backgroundColor = Color.GREEN;
 
     private SuperBar.ColorFormatter color = new SuperBar.ColorFormatter.Solid(Color.BLUE);
 
+    private SuperBarGradient gradient;
+    private SuperBarGradient backgroundGradient;
+
     private GestureDetector gestureDetector;
 
     private boolean touchEnabled = true;
+    private boolean tapToJumpEnabled = true;
 
     private float overlayBarValue = 80f;
 
     private SuperBar.ColorFormatter overlayBarColor = new SuperBar.ColorFormatter.Solid(Color.RED);
 
+    private SuperBarGradient overlayBarGradient;
+
+    private final SuperBarRanges bufferedRanges = new SuperBarRanges();
+
+    private int bufferedRangeColor = Color.LTGRAY;
+
+    private final SuperBarThumbs thumbs = new SuperBarThumbs();
+
+    private float minThumbSeparation = 0f;
+
     private int controlShadowRadius = 6;
     private int controlShadowColor = Color.argb(127, 0, 0, 0);
     private int controlColor = Color.YELLOW;
     private int controlRadius = 0;
 
+    private boolean knobLayerEnabled;
+
     public int getControlRadius() {
 
         return (int)(controlRadius > 0 && controlRadius < superBar.getHeight() ? controlRadius : superBar.getHeight() / 2f);
@@ -138,6 +158,38 @@ public class SuperBarConfig {
         return this.controlColor;
     }
 
+    /**
+     * Set this to true to draw the control knob on its own layer
+     * in the parent overlay, value animations then move the knob by
+     * translation without redrawing it. Requires API 18, on older
+     * versions the knob is drawn with the bar.
+     *
+     * @param knobLayerEnabled Is knob layer enabled.
+     */
+    public void setKnobLayerEnabled(boolean knobLayerEnabled) {
+
+        this.knobLayerEnabled = knobLayerEnabled;
+
+        if (knobLayerEnabled && superBar.getWindowToken() != null) {
+
+            superBar.knobLayer.attach();
+
+        } else if (!knobLayerEnabled) {
+
+            superBar.knobLayer.detach();
+        }
+    }
+
+    /**
+     * Is knob layer enabled.
+     *
+     * @return Knob layer enabled.
+     */
+    public boolean isKnobLayerEnabled() {
+
+        return this.knobLayerEnabled;
+    }
+
     /**
      * Set overlay bar value.
 
@@ -145,9 +197,45 @@ public class SuperBarConfig {
      */
     public void setOverlayBarValue(float overlayBarValue) {
 
-        this.overlayBarValue = overlayBarValue;
+        setOverlayBarValue(null, overlayBarValue);
+    }
 
-        superBar.invalidate();
+    /**
+     * Set overlay bar value from it's current position to
+     * another value.
+     *
+     * @param durationMillis Duration in milliseconds - if null will not animate.
+     *
+     * @param overlayBarValue Target overlay bar value.
+     */
+    public void setOverlayBarValue(Integer durationMillis, float overlayBarValue) {
+
+        setOverlayBarValue(durationMillis, overlayBarValue, this.overlayBarValue);
+    }
+
+    /**
+     * Set overlay bar value from any value to another value, animated
+     * in the same frame tick as the bar value.
+     *
+     * @param durationMillis Duration in milliseconds - if null will not animate.
+     *
+     * @param overlayBarValue Target overlay bar value.
+     * @param overlayBarValueFrom Starting overlay bar value.
+     */
+    public void setOverlayBarValue(Integer durationMillis, float overlayBarValue, float overlayBarValueFrom) {
+
+        if (durationMillis == null) {
+
+            superBar.animator.cancel(SuperBarAnimator.CHANNEL_OVERLAY);
+
+            this.overlayBarValue = overlayBarValue;
+
+            invalidateRenderedChange();
+
+        } else {
+
+            superBar.animator.animate(SuperBarAnimator.CHANNEL_OVERLAY, overlayBarValueFrom, overlayBarValue, durationMillis);
+        }
     }
 
     /**
@@ -195,6 +283,208 @@ public class SuperBarConfig {
         return this.overlayBarColor;
     }
 
+    /**
+     * Set a gradient for the overlay bar, takes precedence
+     * over the overlay color when set.
+     *
+     * @param overlayBarGradient Gradient, null to use the overlay color.
+     */
+    public void setOverlayBarGradient(SuperBarGradient overlayBarGradient) {
+
+        this.overlayBarGradient = overlayBarGradient;
+
+        superBar.invalidate();
+    }
+
+    /**
+     * Get overlay bar gradient.
+     *
+     * @return Overlay bar gradient or null.
+     */
+    public SuperBarGradient getOverlayBarGradient() {
+
+        return this.overlayBarGradient;
+    }
+
+    /**
+     * Add a buffered range to the bar, merged with any buffered range it
+     * overlaps. Only the affected part of the bar is redrawn.
+     *
+     * Buffered ranges are drawn over the background between the
+     * bar and the overlay bar.
+     *
+     * @param start Range start value.
+     * @param end Range end value.
+     */
+    public void addBufferedRange(float start, float end) {
+
+        if (bufferedRanges.add(start, end)) {
+
+            superBar.drawer.invalidateValueSpan(bufferedRanges.getChangedStart(), bufferedRanges.getChangedEnd());
+        }
+    }
+
+    /**
+     * Replace all buffered ranges.
+     *
+     * @param ranges Flattened start and end value pairs.
+     */
+    public void setBufferedRanges(float... ranges) {
+
+        bufferedRanges.clear();
+
+        for (int i = 0; i + 1 < ranges.length; i += 2) {
+
+            bufferedRanges.add(ranges[i], ranges[i + 1]);
+        }
+
+        superBar.invalidate();
+    }
+
+    /**
+     * Remove all buffered ranges.
+     */
+    public void clearBufferedRanges() {
+
+        if (bufferedRanges.clear()) {
+
+            superBar.drawer.invalidateValueSpan(bufferedRanges.getChangedStart(), bufferedRanges.getChangedEnd());
+        }
+    }
+
+    /**
+     * Get the merged buffered ranges.
+     *
+     * @return Flattened start and end value pairs.
+     */
+    public float[] getBufferedRanges() {
+
+        return bufferedRanges.toArray();
+    }
+
+    SuperBarRanges getBufferedRangeSet() {
+
+        return bufferedRanges;
+    }
+
+    /**
+     * Set buffered range color.
+     *
+     * @param bufferedRangeColor Buffered range color.
+     */
+    public void setBufferedRangeColor(int bufferedRangeColor) {
+
+        this.bufferedRangeColor = bufferedRangeColor;
+
+        superBar.invalidate();
+    }
+
+    /**
+     * Get buffered range color.
+     *
+     * @return Buffered range color.
+     */
+    public int getBufferedRangeColor() {
+
+        return this.bufferedRangeColor;
+    }
+
+    /**
+     * Turn the bar into a multi thumb bar, useful for range selection
+     * or markers. With two or more thumbs the bar fills the range
+     * between the first and last thumb. The bar value is not drawn
+     * while there are thumbs, pass no values to go back to a single
+     * value bar.
+     *
+     * @param thumbValues Thumb values, sorted and clamped to the bar bounds.
+     */
+    public void setThumbValues(float... thumbValues) {
+
+        thumbs.set(thumbValues, minBarValue, maxBarValue);
+
+        superBar.invalidate();
+
+        superBar.accessibility.onValueChanged();
+    }
+
+    /**
+     * Get the thumb values in ascending order.
+     *
+     * @return Thumb values, empty for a single value bar.
+     */
+    public float[] getThumbValues() {
+
+        return thumbs.toArray();
+    }
+
+    /**
+     * Move a single thumb, it stays between its neighbours with at least
+     * the minimum thumb separation. Only the span around the thumb is redrawn.
+     *
+     * @param index Thumb index.
+     * @param thumbValue Target value.
+     */
+    public void setThumbValue(int index, float thumbValue) {
+
+        float thumbValueFrom = thumbs.get(index);
+
+        float thumbValueTo = thumbs.move(index, thumbValue, minThumbSeparation, minBarValue, maxBarValue);
+
+        if (thumbValueTo != thumbValueFrom) {
+
+            superBar.drawer.invalidateControlSpan(thumbValueFrom, thumbValueTo);
+
+            superBar.accessibility.onValueChanged();
+        }
+    }
+
+    /**
+     * Get a single thumb value.
+     *
+     * @param index Thumb index.
+     *
+     * @return Thumb value.
+     */
+    public float getThumbValue(int index) {
+
+        return thumbs.get(index);
+    }
+
+    /**
+     * Get the index of the thumb being dragged by the user.
+     *
+     * @return Thumb index or -1 if none.
+     */
+    public int getActiveThumb() {
+
+        return thumbs.getActiveIndex();
+    }
+
+    SuperBarThumbs getThumbs() {
+
+        return thumbs;
+    }
+
+    /**
+     * Set the minimum distance in value between neighbouring thumbs.
+     *
+     * @param minThumbSeparation Minimum thumb separation.
+     */
+    public void setMinThumbSeparation(float minThumbSeparation) {
+
+        this.minThumbSeparation = minThumbSeparation;
+    }
+
+    /**
+     * Get the minimum distance in value between neighbouring thumbs.
+     *
+     * @return Minimum thumb separation.
+     */
+    public float getMinThumbSeparation() {
+
+        return minThumbSeparation;
+    }
+
     /**
      * Set a callback to be fired when the current bar selection
      * value is changed by the user.
@@ -291,30 +581,92 @@ public class SuperBarConfig {
 
         if (durationMillis == null) {
 
+            superBar.animator.cancel(SuperBarAnimator.CHANNEL_BAR);
+
             this.barValue = barValue;
 
-            superBar.invalidate();
+            invalidateRenderedChange();
+
+            superBar.accessibility.onValueChanged();
 
         } else {
 
-            final ObjectAnimator animator = ObjectAnimator.ofFloat(this, "barValue", barValueFrom, barValue);
+            superBar.animator.animate(SuperBarAnimator.CHANNEL_BAR, barValueFrom, barValue, durationMillis);
+        }
+    }
 
-            animator.setInterpolator(new AccelerateDecelerateInterpolator());
-            animator.setDuration(durationMillis);
-            animator.addUpdateListener(superBar);
-            animator.start();
+    /**
+     * Invalidate after a value change only if it moves a drawn
+     * edge by at least a pixel or changes a formatted color, most
+     * updates to a bar with a large value range do neither.
+     */
+    private void invalidateRenderedChange() {
+
+        if (superBar.drawer.hasRenderedChange()) {
+
+            superBar.invalidate();
         }
+
+        superBar.knobLayer.sync();
     }
 
     /**
-     * Private setter needed for the object animator.
+     * Setter used by the animator to step a channel value.
      *
-     * @param barValue Desired bar value.
+     * @param channel Animator channel.
+     * @param value Current animated value.
      */
-    @SuppressWarnings("unused")
-    private void setBarValue(float barValue) {
+    void setAnimatedValue(int channel, float value) {
+
+        switch (channel) {
+
+            case SuperBarAnimator.CHANNEL_BAR:
+
+                this.barValue = value;
 
-        this.barValue = barValue;
+                superBar.accessibility.onValueChanged();
+
+                break;
+
+            case SuperBarAnimator.CHANNEL_OVERLAY:
+
+                this.overlayBarValue = value;
+
+                break;
+        }
+    }
+
+    /**
+     * Cap how often value animations redraw this bar, useful for
+     * ambient or decorative bars that do not need the full
+     * display refresh rate.
+     *
+     * @param animationFrameRate Frames per second, 0 to use the default.
+     */
+    public void setAnimationFrameRate(int animationFrameRate) {
+
+        this.animationFrameRate = animationFrameRate;
+    }
+
+    /**
+     * Get the effective animation frame rate cap.
+     *
+     * @return Frames per second, 0 for uncapped.
+     */
+    public int getAnimationFrameRate() {
+
+        return animationFrameRate > 0 ? animationFrameRate : defaultAnimationFrameRate;
+    }
+
+    /**
+     * Cap how often value animations redraw every bar that
+     * does not set its own frame rate.
+     *
+     * @param defaultAnimationFrameRate Frames per second, 0 for uncapped.
+     */
+    public static void setDefaultAnimationFrameRate(int defaultAnimationFrameRate) {
+
+        SuperBarConfig.defaultAnimationFrameRate = defaultAnimationFrameRate;
     }
 
     /**
@@ -349,6 +701,34 @@ public class SuperBarConfig {
         return minBarValue;
     }
 
+    /**
+     * Sets the scale used to map values to positions along
+     * the bar, linear by default.
+     *
+     * @param valueScale Value scale.
+     */
+    public void setValueScale(SuperBar.ValueScale valueScale) {
+
+        if (valueScale == null) {
+
+            return;
+        }
+
+        this.valueScale = valueScale;
+
+        superBar.invalidate();
+    }
+
+    /**
+     * Returns the value scale.
+     *
+     * @return Value scale.
+     */
+    public SuperBar.ValueScale getValueScale() {
+
+        return valueScale;
+    }
+
     /**
      * Sets the interval in which the values can be chosen and displayed
      * from the bar slider.
@@ -407,6 +787,32 @@ public class SuperBarConfig {
         return this.color;
     }
 
+    /**
+     * Set a gradient for the bar, takes precedence over
+     * the bar color when set.
+     *
+     * The gradient spans the full track so the bar reveals
+     * more of it as the value grows.
+     *
+     * @param gradient Gradient, null to use the bar color.
+     */
+    public void setGradient(SuperBarGradient gradient) {
+
+        this.gradient = gradient;
+
+        superBar.invalidate();
+    }
+
+    /**
+     * Get bar gradient.
+     *
+     * @return Bar gradient or null.
+     */
+    public SuperBarGradient getGradient() {
+
+        return this.gradient;
+    }
+
     /**
      * Set a gesture detector for consumers that wish
      * to add custom handling of touch events.
@@ -449,6 +855,27 @@ public class SuperBarConfig {
         return this.touchEnabled;
     }
 
+    /**
+     * Set this to true to jump to the touched value on a tap, otherwise
+     * the value only changes once the user drags horizontally.
+     *
+     * @param tapToJumpEnabled Is tap to jump enabled.
+     */
+    public void setTapToJumpEnabled(boolean tapToJumpEnabled) {
+
+        this.tapToJumpEnabled = tapToJumpEnabled;
+    }
+
+    /**
+     * Is tap to jump enabled.
+     *
+     * @return Tap to jump enabled.
+     */
+    public boolean isTapToJumpEnabled() {
+
+        return this.tapToJumpEnabled;
+    }
+
     /**
      * Set background color for the bar.
      *
@@ -468,4 +895,27 @@ public class SuperBarConfig {
 
         return this.backgroundColor;
     }
+
+    /**
+     * Set a gradient for the bar background, takes precedence
+     * over the background color when set.
+     *
+     * @param backgroundGradient Gradient, null to use the background color.
+     */
+    public void setBackgroundGradient(SuperBarGradient backgroundGradient) {
+
+        this.backgroundGradient = backgroundGradient;
+
+        superBar.invalidate();
+    }
+
+    /**
+     * Get background gradient for the bar.
+     *
+     * @return Background gradient or null.
+     */
+    public SuperBarGradient getBackgroundGradient() {
+
+        return this.backgroundGradient;
+    }
 }
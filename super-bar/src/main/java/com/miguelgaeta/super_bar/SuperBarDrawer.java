@@ -1,166 +1,136 @@
 package com.miguelgaeta.super_bar;
 
-import android.graphics.Canvas;
-import android.graphics.RectF;
-import android.view.MotionEvent;
-
 /**
  * Handles drawing and update operations for the super bar.
  *
+ * Layout and draw logic live in the plain java geometry, this
+ * class only feeds it a snapshot of the bar.
+ *
  * Created by Miguel Gaeta on 12/17/15.
  */
 class SuperBarDrawer {
 
     private final SuperBar sb;
 
-    private RectF rect = new RectF();
+    private final SuperBarGeometry geometry = new SuperBarGeometry();
+
+    private final SuperBarGeometry.Snapshot snapshot = new SuperBarGeometry.Snapshot();
 
     SuperBarDrawer(SuperBar superBar) {
 
         this.sb = superBar;
     }
 
-    void draw(Canvas canvas) {
-
-        float barTop = (sb.getHeight() / 2f) - sb.config.getBarHeight() / 2f;
-        float barBot = (sb.getHeight() / 2f) + sb.config.getBarHeight() / 2f;
+    void draw(SuperBarRenderer renderer) {
 
-        drawBackgroundBar(canvas, barTop, barBot);
-
-        drawBar(canvas, barTop, barBot, sb.config.getBarValue());
-
-        drawOverlayBar(canvas, barTop, barBot, sb.config.getOverlayBarValue());
-
-        drawControl(canvas, sb.config.getBarValue());
+        geometry.draw(renderer, snapshot());
     }
 
-    private void drawBar(Canvas canvas, float barTop, float barBot, float barValue) {
-
-        float length = ((sb.getWidth() - (sb.config.getControlShadowRadius() * 2)) / (sb.config.getMaxBarValue() - sb.config.getMinBarValue())) * (barValue - sb.config.getMinBarValue());
+    /**
+     * Check if the current values would render any differently
+     * than the last drawn frame, either an edge moving by at
+     * least a pixel or a formatted color changing.
+     *
+     * @return True if the bar needs to be redrawn.
+     */
+    boolean hasRenderedChange() {
 
-        rect.set(sb.config.getControlShadowRadius(), barTop, length + sb.config.getControlShadowRadius(), barBot);
-
-        sb.paint.setColor(sb.config.getColor().getColor(sb.config.getBarValue(), sb.config.getMaxBarValue(), sb.config.getMinBarValue()));
-
-        canvas.drawRoundRect(rect, rect.height() / 2f, rect.height() / 2f, sb.paint);
+        return geometry.hasRenderedChange(snapshot());
     }
 
-    private void drawBackgroundBar(Canvas canvas, float barTop, float barBot) {
-
-        rect.set(sb.config.getControlShadowRadius(), barTop, sb.getWidth() - sb.config.getControlShadowRadius(), barBot);
-
-        sb.paint.setColor(sb.config.getBackgroundColor());
+    /**
+     * Center of the control for a value, snapped to a whole pixel.
+     */
+    float getControlX(float barValue) {
 
-        canvas.drawRoundRect(rect, rect.height() / 2f, rect.height() / 2f, sb.paint);
+        return geometry.getControlX(snapshot(), barValue);
     }
 
-    private void drawOverlayBar(Canvas canvas, float barTop, float barBot, float barValue) {
-
-        float length = ((sb.getWidth() - (sb.config.getControlShadowRadius() * 2)) / (sb.config.getMaxBarValue() - sb.config.getMinBarValue())) * (barValue - sb.config.getMinBarValue());
-
-        rect.set(length + sb.config.getControlShadowRadius(), barTop, sb.getWidth() - sb.config.getControlShadowRadius(), barBot);
-
-        sb.paint.setColor(sb.config.getOverlayBarColor().getColor(
-            sb.config.getOverlayBarValue(),
-            sb.config.getMaxBarValue(),
-            sb.config.getMinBarValue()));
+    /**
+     * Map a touch position to a bar value snapped to the bar interval.
+     */
+    float getTouchValue(float touchX) {
 
-        canvas.drawRoundRect(rect, rect.height() / 2f, rect.height() / 2f, sb.paint);
+        return geometry.getTouchValue(snapshot(), touchX);
     }
 
-    private void drawControl(Canvas canvas, float barValue) {
+    /**
+     * Invalidate only the part of the bar covering a value span.
+     *
+     * @param valueFrom Span start value.
+     * @param valueTo Span end value.
+     */
+    void invalidateValueSpan(float valueFrom, float valueTo) {
 
-        float controlX = ((sb.getWidth() -
-            (sb.config.getControlShadowRadius() * 2 + sb.config.getControlRadius() * 2)) /
-            (sb.config.getMaxBarValue() - sb.config.getMinBarValue())) * (barValue - sb.config.getMinBarValue());
+        final SuperBarGeometry.Snapshot snapshot = snapshot();
 
-        controlX += sb.config.getControlRadius() + sb.config.getControlShadowRadius();
-
-        sb.paint.setColor(
-            sb.config.getControlColor(),
-            sb.config.getControlShadowRadius(),
-            sb.config.getControlShadowColor());
-
-        canvas.drawCircle(controlX,
-            sb.getHeight() / 2f,
-            sb.config.getControlRadius(),
-            sb.paint);
+        sb.invalidate(
+            (int)geometry.getBarX(snapshot, valueFrom) - 1, 0,
+            (int)geometry.getBarX(snapshot, valueTo) + 1, sb.getHeight());
     }
 
-    public boolean onTouchEvent(MotionEvent motionEvent) {
-
-        if (sb.config.getGestureDetector() != null &&
-            sb.config.getGestureDetector().onTouchEvent(motionEvent)) {
-
-            return true;
-        }
-
-        switch (motionEvent.getAction()) {
-
-            case MotionEvent.ACTION_MOVE:
-
-                if (sb.config.getOnSelectionMoved() != null) {
-                    sb.config.getOnSelectionMoved().onSelectionMoved(
-                        sb.config.getBarValue(),
-                        sb.config.getMaxBarValue(),
-                        sb.config.getMinBarValue(), sb);
-                }
+    /**
+     * Invalidate only the part of the bar a control moved across.
+     *
+     * @param valueFrom Previous control value.
+     * @param valueTo New control value.
+     */
+    void invalidateControlSpan(float valueFrom, float valueTo) {
 
-                break;
+        float controlFromX = getControlX(valueFrom);
+        float controlToX = getControlX(valueTo);
 
-            case MotionEvent.ACTION_UP:
+        int controlExtent = sb.config.getControlRadius() + sb.config.getControlShadowRadius() + 1;
 
-                if (sb.config.getOnSelectionChanged() != null) {
-                    sb.config.getOnSelectionChanged().onSelectionChanged(
-                        sb.config.getBarValue(),
-                        sb.config.getMaxBarValue(),
-                        sb.config.getMinBarValue(), sb);
-                }
-
-                break;
-        }
-
-        switch (motionEvent.getAction()) {
-
-            case MotionEvent.ACTION_DOWN:
-            case MotionEvent.ACTION_MOVE:
-            case MotionEvent.ACTION_UP:
-
-                float barValue;
-
-                if (motionEvent.getX() <= 0) {
-
-                    barValue = sb.config.getMinBarValue();
+        sb.invalidate(
+            (int)Math.min(controlFromX, controlToX) - controlExtent, 0,
+            (int)Math.max(controlFromX, controlToX) + controlExtent, sb.getHeight());
+    }
 
-                } else if (motionEvent.getX() > sb.getWidth()) {
+    /**
+     * Copy the current size and values of the bar into the snapshot.
+     */
+    private SuperBarGeometry.Snapshot snapshot() {
 
-                    barValue = sb.config.getMaxBarValue();
+        snapshot.width = sb.getWidth();
+        snapshot.height = sb.getHeight();
 
-                } else {
+        snapshot.barHeight = sb.config.getBarHeight();
 
-                    float factor = motionEvent.getX() / sb.getWidth();
+        snapshot.minValue = sb.config.getMinBarValue();
+        snapshot.maxValue = sb.config.getMaxBarValue();
+        snapshot.barInterval = sb.config.getBarInterval();
+        snapshot.valueScale = sb.config.getValueScale();
 
-                    barValue = (sb.config.getMaxBarValue() - sb.config.getMinBarValue()) * factor + sb.config.getMinBarValue();
-                }
+        snapshot.barValue = sb.config.getBarValue();
+        snapshot.overlayValue = sb.config.getOverlayBarValue();
 
-                if (sb.config.getBarInterval() > 0f) {
+        snapshot.gradient = sb.config.getGradient();
+        snapshot.backgroundGradient = sb.config.getBackgroundGradient();
+        snapshot.overlayGradient = sb.config.getOverlayBarGradient();
 
-                    float remainder = barValue % sb.config.getBarInterval();
+        snapshot.barColor = snapshot.gradient != null ? 0 : sb.config.getColor().getColor(
+            snapshot.barValue,
+            snapshot.maxValue,
+            snapshot.minValue);
 
-                    if (remainder <= sb.config.getBarInterval() / 2f) {
+        snapshot.overlayColor = snapshot.overlayGradient != null ? 0 : sb.config.getOverlayBarColor().getColor(
+            snapshot.overlayValue,
+            snapshot.maxValue,
+            snapshot.minValue);
 
-                        barValue = barValue - remainder;
-                    } else {
-                        barValue = barValue - remainder + sb.config.getBarInterval();
-                    }
-                }
+        snapshot.backgroundColor = sb.config.getBackgroundColor();
+        snapshot.bufferedRangeColor = sb.config.getBufferedRangeColor();
 
-                sb.config.setBarValue(null, barValue);
-                sb.invalidate();
+        snapshot.controlRadius = sb.config.getControlRadius();
+        snapshot.controlShadowRadius = sb.config.getControlShadowRadius();
+        snapshot.controlColor = sb.config.getControlColor();
+        snapshot.controlShadowColor = sb.config.getControlShadowColor();
+        snapshot.controlDrawn = !sb.knobLayer.isActive();
 
-                break;
-        }
+        snapshot.ranges = sb.config.getBufferedRangeSet();
+        snapshot.thumbs = sb.config.getThumbs();
 
-        return true;
+        return snapshot;
     }
 }
@@ -0,0 +1,392 @@
+package com.miguelgaeta.super_bar;
+
+/**
+ * Layout and draw logic of the bar in plain java, every position
+ * is computed from a size and a value snapshot and drawn through
+ * a renderer so the same code runs on a device and on a desktop jvm.
+ */
+class SuperBarGeometry {
+
+    /**
+     * Everything a frame depends on, filled in by the
+     * drawer from the bar before every use.
+     */
+    static class Snapshot {
+
+        int width;
+        int height;
+
+        float barHeight;
+
+        float minValue = 0f;
+        float maxValue = 100f;
+        float barInterval;
+
+        SuperBar.ValueScale valueScale = new SuperBar.ValueScale.Linear();
+
+        float barValue;
+        float overlayValue;
+
+        int barColor;
+        int overlayColor;
+        int backgroundColor;
+        int bufferedRangeColor;
+
+        SuperBarGradient gradient;
+        SuperBarGradient backgroundGradient;
+        SuperBarGradient overlayGradient;
+
+        int controlRadius;
+        int controlShadowRadius;
+        int controlColor;
+        int controlShadowColor;
+
+        /**
+         * False when the knob layer draws the control instead of the bar.
+         */
+        boolean controlDrawn = true;
+
+        SuperBarRanges ranges = new SuperBarRanges();
+
+        SuperBarThumbs thumbs = new SuperBarThumbs();
+
+        /**
+         * Copy everything but the values, colors formatted from
+         * the values, ranges and thumbs.
+         */
+        void copyStyle(Snapshot snapshot) {
+
+            width = snapshot.width;
+            height = snapshot.height;
+            barHeight = snapshot.barHeight;
+            minValue = snapshot.minValue;
+            maxValue = snapshot.maxValue;
+            valueScale = snapshot.valueScale;
+            backgroundColor = snapshot.backgroundColor;
+            bufferedRangeColor = snapshot.bufferedRangeColor;
+            gradient = snapshot.gradient;
+            backgroundGradient = snapshot.backgroundGradient;
+            overlayGradient = snapshot.overlayGradient;
+            controlRadius = snapshot.controlRadius;
+            controlShadowRadius = snapshot.controlShadowRadius;
+            controlColor = snapshot.controlColor;
+            controlShadowColor = snapshot.controlShadowColor;
+            controlDrawn = snapshot.controlDrawn;
+        }
+
+        boolean hasSameStyle(Snapshot snapshot) {
+
+            return width == snapshot.width &&
+                height == snapshot.height &&
+                barHeight == snapshot.barHeight &&
+                minValue == snapshot.minValue &&
+                maxValue == snapshot.maxValue &&
+                valueScale == snapshot.valueScale &&
+                backgroundColor == snapshot.backgroundColor &&
+                bufferedRangeColor == snapshot.bufferedRangeColor &&
+                gradient == snapshot.gradient &&
+                backgroundGradient == snapshot.backgroundGradient &&
+                overlayGradient == snapshot.overlayGradient &&
+                controlRadius == snapshot.controlRadius &&
+                controlShadowRadius == snapshot.controlShadowRadius &&
+                controlColor == snapshot.controlColor &&
+                controlShadowColor == snapshot.controlShadowColor &&
+                controlDrawn == snapshot.controlDrawn;
+        }
+    }
+
+    private final SuperBarScaleTable scale = new SuperBarScaleTable();
+
+    private float trackLeft;
+    private float trackTop;
+    private float trackRight;
+    private float trackBottom;
+
+    private final SuperBarSpans rangeSpans = new SuperBarSpans();
+    private final SuperBarSpans gapSpans = new SuperBarSpans();
+
+    private boolean rangeSpansStale = true;
+    private int rangeSpansVersion;
+
+    private boolean drawn;
+
+    private float drawnBarX;
+    private float drawnOverlayX;
+    private float drawnControlX;
+
+    private int drawnBarColor;
+    private int drawnOverlayColor;
+
+    private final Snapshot drawnStyle = new Snapshot();
+
+    void draw(SuperBarRenderer renderer, Snapshot snapshot) {
+
+        float barTop = (snapshot.height / 2f) - snapshot.barHeight / 2f;
+        float barBot = (snapshot.height / 2f) + snapshot.barHeight / 2f;
+
+        float barLeft = getTrackLeft(snapshot);
+        float barRight = getTrackRight(snapshot);
+
+        updateTrack(barLeft, barTop, barRight, barBot);
+        updateScale(snapshot);
+
+        renderer.setTrack(barLeft, barTop, barRight, barBot);
+
+        final SuperBarThumbs thumbs = snapshot.thumbs;
+
+        float barX = getBarX(snapshot.barValue, barLeft, barRight);
+        float overlayX = getBarX(snapshot.overlayValue, barLeft, barRight);
+
+        // With two or more thumbs the bar fills the selected range.
+        float barStartX = thumbs.size() > 1 ? Math.min(getBarX(thumbs.get(0), barLeft, barRight), overlayX) : barLeft;
+        float barEndX = Math.max(barStartX, Math.min(thumbs.size() > 0 ? getBarX(thumbs.get(thumbs.size() - 1), barLeft, barRight) : barX, overlayX));
+
+        drawBackgroundBar(renderer, snapshot, barLeft, barStartX);
+
+        renderer.setFill(SuperBarRenderer.LAYER_BAR, snapshot.barColor, snapshot.gradient);
+        renderer.drawSpan(barStartX, barEndX);
+
+        drawBackgroundBar(renderer, snapshot, barEndX, overlayX);
+
+        renderer.setFill(SuperBarRenderer.LAYER_OVERLAY, snapshot.overlayColor, snapshot.overlayGradient);
+        renderer.drawSpan(overlayX, barRight);
+
+        if (thumbs.size() > 0) {
+
+            for (int i = 0; i < thumbs.size(); i++) {
+
+                drawControl(renderer, snapshot, thumbs.get(i));
+            }
+
+        } else if (snapshot.controlDrawn) {
+
+            drawControl(renderer, snapshot, snapshot.barValue);
+        }
+
+        drawn = true;
+        drawnBarX = barX;
+        drawnOverlayX = overlayX;
+        drawnControlX = getControlX(snapshot, snapshot.barValue);
+        drawnBarColor = snapshot.barColor;
+        drawnOverlayColor = snapshot.overlayColor;
+        drawnStyle.copyStyle(snapshot);
+    }
+
+    /**
+     * Check if the snapshot would render any differently
+     * than the last drawn frame, either an edge moving by at
+     * least a pixel, a formatted color changing or any style
+     * property such as sizes, colors or gradients changing.
+     *
+     * @return True if the bar needs to be redrawn.
+     */
+    boolean hasRenderedChange(Snapshot snapshot) {
+
+        if (!drawn || !drawnStyle.hasSameStyle(snapshot)) {
+
+            return true;
+        }
+
+        updateScale(snapshot);
+
+        float barLeft = getTrackLeft(snapshot);
+        float barRight = getTrackRight(snapshot);
+
+        return getBarX(snapshot.barValue, barLeft, barRight) != drawnBarX ||
+            getBarX(snapshot.overlayValue, barLeft, barRight) != drawnOverlayX ||
+            (snapshot.controlDrawn && getControlX(snapshot, snapshot.barValue) != drawnControlX) ||
+            snapshot.barColor != drawnBarColor ||
+            snapshot.overlayColor != drawnOverlayColor;
+    }
+
+    /**
+     * Position of a value along the track, snapped to a whole pixel.
+     */
+    float getBarX(Snapshot snapshot, float barValue) {
+
+        updateScale(snapshot);
+
+        return getBarX(barValue, getTrackLeft(snapshot), getTrackRight(snapshot));
+    }
+
+    /**
+     * Center of the control for a value, snapped to a whole pixel.
+     */
+    float getControlX(Snapshot snapshot, float barValue) {
+
+        updateScale(snapshot);
+
+        float controlX = (snapshot.width -
+            (snapshot.controlShadowRadius * 2 + snapshot.controlRadius * 2)) * scale.getFraction(barValue);
+
+        return Math.round(controlX + snapshot.controlRadius + snapshot.controlShadowRadius);
+    }
+
+    /**
+     * Map a touch position to a bar value snapped to the bar interval.
+     */
+    float getTouchValue(Snapshot snapshot, float touchX) {
+
+        float barValue;
+
+        if (touchX <= 0) {
+
+            barValue = snapshot.minValue;
+
+        } else if (touchX > snapshot.width) {
+
+            barValue = snapshot.maxValue;
+
+        } else {
+
+            updateScale(snapshot);
+
+            barValue = scale.getValue(touchX / snapshot.width);
+        }
+
+        if (snapshot.barInterval > 0f) {
+
+            float remainder = barValue % snapshot.barInterval;
+
+            if (remainder <= snapshot.barInterval / 2f) {
+
+                barValue = barValue - remainder;
+            } else {
+                barValue = barValue - remainder + snapshot.barInterval;
+            }
+        }
+
+        return barValue;
+    }
+
+    private static float getTrackLeft(Snapshot snapshot) {
+
+        return snapshot.controlShadowRadius;
+    }
+
+    private static float getTrackRight(Snapshot snapshot) {
+
+        return snapshot.width - snapshot.controlShadowRadius;
+    }
+
+    /**
+     * Position of a value along the track, snapped to a whole
+     * pixel so adjacent spans meet without a seam.
+     */
+    private float getBarX(float barValue, float barLeft, float barRight) {
+
+        float length = (barRight - barLeft) * scale.getFraction(barValue);
+
+        return Math.max(barLeft, Math.min(barRight, Math.round(barLeft + length)));
+    }
+
+    /**
+     * Keep the value lookup table in sync with the
+     * scale, bounds and track size.
+     */
+    private void updateScale(Snapshot snapshot) {
+
+        if (scale.update(snapshot.valueScale,
+            snapshot.minValue,
+            snapshot.maxValue,
+            snapshot.width - snapshot.controlShadowRadius * 2)) {
+
+            rangeSpansStale = true;
+        }
+    }
+
+    /**
+     * Track bounds only change on resize, range spans
+     * are rebuilt when they do.
+     */
+    private void updateTrack(float barLeft, float barTop, float barRight, float barBot) {
+
+        if (trackLeft == barLeft && trackTop == barTop && trackRight == barRight && trackBottom == barBot) {
+
+            return;
+        }
+
+        trackLeft = barLeft;
+        trackTop = barTop;
+        trackRight = barRight;
+        trackBottom = barBot;
+
+        rangeSpansStale = true;
+    }
+
+    /**
+     * Rebuild the buffered range and gap spans, only
+     * needed when the ranges or the track geometry change.
+     */
+    private void updateRangeSpans(SuperBarRanges ranges) {
+
+        if (!rangeSpansStale && rangeSpansVersion == ranges.getVersion()) {
+
+            return;
+        }
+
+        rangeSpansStale = false;
+        rangeSpansVersion = ranges.getVersion();
+
+        rangeSpans.reset();
+        gapSpans.reset();
+
+        float gapLeft = trackLeft;
+
+        for (int i = 0; i < ranges.size(); i++) {
+
+            float rangeLeft = Math.max(gapLeft, getBarX(ranges.getStart(i), trackLeft, trackRight));
+            float rangeRight = getBarX(ranges.getEnd(i), trackLeft, trackRight);
+
+            if (rangeRight <= rangeLeft) {
+
+                continue;
+            }
+
+            gapSpans.add(gapLeft, rangeLeft);
+            rangeSpans.add(rangeLeft, rangeRight);
+
+            gapLeft = rangeRight;
+        }
+
+        gapSpans.add(gapLeft, trackRight);
+    }
+
+    private void drawBackgroundBar(SuperBarRenderer renderer, Snapshot snapshot, float spanLeft, float spanRight) {
+
+        renderer.setFill(SuperBarRenderer.LAYER_BACKGROUND, snapshot.backgroundColor, snapshot.backgroundGradient);
+
+        if (snapshot.ranges.size() == 0) {
+
+            renderer.drawSpan(spanLeft, spanRight);
+
+            return;
+        }
+
+        updateRangeSpans(snapshot.ranges);
+
+        renderer.drawSpans(gapSpans, spanLeft, spanRight);
+        renderer.setFill(SuperBarRenderer.LAYER_BUFFERED, snapshot.bufferedRangeColor, null);
+        renderer.drawSpans(rangeSpans, spanLeft, spanRight);
+    }
+
+    private void drawControl(SuperBarRenderer renderer, Snapshot snapshot, float barValue) {
+
+        float controlX = getControlX(snapshot, barValue);
+
+        float controlExtent = snapshot.controlRadius + snapshot.controlShadowRadius;
+
+        // Skip knobs outside of a partial redraw.
+        if (renderer.quickReject(controlX - controlExtent, 0, controlX + controlExtent, snapshot.height)) {
+
+            return;
+        }
+
+        renderer.drawCircle(controlX,
+            snapshot.height / 2f,
+            snapshot.controlRadius,
+            snapshot.controlColor,
+            snapshot.controlShadowRadius,
+            snapshot.controlShadowColor);
+    }
+}
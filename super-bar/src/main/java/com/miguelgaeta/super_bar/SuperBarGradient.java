@@ -0,0 +1,85 @@
+package com.miguelgaeta.super_bar;
+
+import java.util.Arrays;
+
+/**
+ * Immutable description of a left to right gradient
+ * fill that spans the full length of the bar track.
+ */
+public final class SuperBarGradient {
+
+    private final int[] colors;
+    private final float[] positions;
+
+    private final int hashCode;
+
+    /**
+     * Gradient with evenly spaced color stops.
+     *
+     * @param colors At least two colors, from left to right.
+     */
+    public SuperBarGradient(int... colors) {
+
+        this(colors, null);
+    }
+
+    /**
+     * Gradient with explicit color stops.
+     *
+     * @param colors At least two colors, from left to right.
+     * @param positions Relative stop positions from 0 to 1, null for evenly spaced.
+     */
+    public SuperBarGradient(int[] colors, float[] positions) {
+
+        if (colors == null || colors.length < 2) {
+
+            throw new IllegalArgumentException("Gradient needs at least two colors.");
+        }
+
+        if (positions != null && positions.length != colors.length) {
+
+            throw new IllegalArgumentException("Gradient positions must match colors.");
+        }
+
+        this.colors = colors.clone();
+        this.positions = positions != null ? positions.clone() : null;
+
+        this.hashCode = 31 * Arrays.hashCode(this.colors) + Arrays.hashCode(this.positions);
+    }
+
+    int[] getColors() {
+
+        return colors;
+    }
+
+    float[] getPositions() {
+
+        return positions;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+
+        if (this == o) {
+
+            return true;
+        }
+
+        if (!(o instanceof SuperBarGradient)) {
+
+            return false;
+        }
+
+        final SuperBarGradient that = (SuperBarGradient)o;
+
+        return hashCode == that.hashCode &&
+            Arrays.equals(colors, that.colors) &&
+            Arrays.equals(positions, that.positions);
+    }
+
+    @Override
+    public int hashCode() {
+
+        return hashCode;
+    }
+}
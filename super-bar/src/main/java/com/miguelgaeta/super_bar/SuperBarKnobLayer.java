@@ -0,0 +1,334 @@
+package com.miguelgaeta.super_bar;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.graphics.Canvas;
+import android.os.Build;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewParent;
+import android.view.ViewTreeObserver;
+import android.view.animation.AccelerateDecelerateInterpolator;
+import android.view.animation.AnimationUtils;
+
+/**
+ * Draws the control knob on its own view in the parent overlay so
+ * value animations move it by translation, which only updates render
+ * properties and skips redrawing the bar. The knob still animates on
+ * the UI thread, so it stalls along with it.
+ */
+class SuperBarKnobLayer implements ViewTreeObserver.OnPreDrawListener {
+
+    private final SuperBar sb;
+
+    private Knob knob;
+
+    private ViewGroup host;
+
+    private long animationEndTime;
+
+    /**
+     * Everything the knob position depends on as of the last sync,
+     * a pre draw with none of it changed skips formatting the bar.
+     */
+    private boolean synced;
+    private boolean syncedAnimating;
+    private int syncedLeft;
+    private int syncedTop;
+    private int syncedWidth;
+    private int syncedHeight;
+    private int syncedVisibility;
+    private int syncedControlRadius;
+    private int syncedControlShadowRadius;
+    private float syncedTranslationX;
+    private float syncedTranslationY;
+    private float syncedBarValue;
+    private float syncedMinValue;
+    private float syncedMaxValue;
+    private SuperBar.ValueScale syncedValueScale;
+
+    SuperBarKnobLayer(SuperBar superBar) {
+
+        this.sb = superBar;
+    }
+
+    /**
+     * @return True if the knob is drawn by the layer instead of the bar.
+     */
+    boolean isActive() {
+
+        return knob != null;
+    }
+
+    /**
+     * Move the knob into the parent overlay, only supported on
+     * API 18 and up and otherwise the bar keeps drawing it.
+     */
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+    void attach() {
+
+        final ViewParent parent = sb.getParent();
+
+        if (knob != null || Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN_MR2 || !(parent instanceof ViewGroup)) {
+
+            return;
+        }
+
+        host = (ViewGroup)parent;
+
+        knob = new Knob(sb.getContext(), sb);
+
+        host.getOverlay().add(knob);
+
+        sb.getViewTreeObserver().addOnPreDrawListener(this);
+
+        sb.invalidate();
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+    void detach() {
+
+        if (knob == null) {
+
+            return;
+        }
+
+        knob.animate().cancel();
+
+        host.getOverlay().remove(knob);
+
+        sb.getViewTreeObserver().removeOnPreDrawListener(this);
+
+        knob = null;
+        host = null;
+
+        synced = false;
+
+        sb.invalidate();
+    }
+
+    /**
+     * Animate the knob between two values with the same duration and
+     * easing the animator uses for the bar so both stay in step. The
+     * view property animator applies the animator duration scale on its
+     * own, the end time uses the same scaled duration as the animator.
+     *
+     * With a frame rate cap the knob is not animated on its own, it
+     * is synced on every capped animator step so it moves together
+     * with the fill edge.
+     */
+    void animate(float valueFrom, float valueTo, long durationMillis) {
+
+        if (knob == null) {
+
+            return;
+        }
+
+        if (sb.config.getAnimationFrameRate() > 0) {
+
+            cancel();
+            sync();
+
+            return;
+        }
+
+        animationEndTime = AnimationUtils.currentAnimationTimeMillis() + sb.animator.getScaledDuration(durationMillis);
+
+        synced = false;
+
+        knob.animate().cancel();
+        knob.setTranslationX(getKnobX(valueFrom));
+        knob.animate()
+            .translationX(getKnobX(valueTo))
+            .setDuration(durationMillis)
+            .setInterpolator(new AccelerateDecelerateInterpolator())
+            .start();
+    }
+
+    void cancel() {
+
+        if (knob == null) {
+
+            return;
+        }
+
+        animationEndTime = 0;
+
+        synced = false;
+
+        knob.animate().cancel();
+    }
+
+    /**
+     * Keep the knob lined up with the bar before every frame,
+     * the bar can be moved by its parent without a layout pass.
+     */
+    @Override
+    public boolean onPreDraw() {
+
+        sync();
+
+        return true;
+    }
+
+    /**
+     * Line the knob up with the bar and its current value, the knob
+     * only moves by render properties so this never redraws the bar.
+     */
+    void sync() {
+
+        if (knob == null) {
+
+            return;
+        }
+
+        knob.update();
+
+        final boolean animating = AnimationUtils.currentAnimationTimeMillis() < animationEndTime;
+
+        if (!hasSyncChange(animating)) {
+
+            return;
+        }
+
+        int size = (sb.config.getControlRadius() + sb.config.getControlShadowRadius()) * 2;
+
+        int left = sb.getLeft();
+        int top = sb.getTop() + (sb.getHeight() - size) / 2;
+
+        if (knob.getLeft() != left || knob.getTop() != top || knob.getWidth() != size || knob.getHeight() != size) {
+
+            knob.layout(left, top, left + size, top + size);
+        }
+
+        if (knob.getTranslationY() != sb.getTranslationY()) {
+
+            knob.setTranslationY(sb.getTranslationY());
+        }
+
+        // Multi thumb bars draw their own knobs.
+        int visibility = sb.config.getThumbs().size() > 0 ? View.INVISIBLE : sb.getVisibility();
+
+        if (knob.getVisibility() != visibility) {
+
+            knob.setVisibility(visibility);
+        }
+
+        if (!animating) {
+
+            float knobX = getKnobX(sb.config.getBarValue());
+
+            if (knob.getTranslationX() != knobX) {
+
+                knob.setTranslationX(knobX);
+            }
+        }
+    }
+
+    /**
+     * Check if anything the knob position depends on changed since
+     * the last sync and remember the current state if it did.
+     *
+     * @param animating True while the knob runs its own animation.
+     *
+     * @return True if the knob needs to be synced.
+     */
+    private boolean hasSyncChange(boolean animating) {
+
+        final int visibility = sb.config.getThumbs().size() > 0 ? View.INVISIBLE : sb.getVisibility();
+
+        if (synced &&
+            syncedAnimating == animating &&
+            syncedLeft == sb.getLeft() &&
+            syncedTop == sb.getTop() &&
+            syncedWidth == sb.getWidth() &&
+            syncedHeight == sb.getHeight() &&
+            syncedVisibility == visibility &&
+            syncedControlRadius == sb.config.getControlRadius() &&
+            syncedControlShadowRadius == sb.config.getControlShadowRadius() &&
+            syncedTranslationX == sb.getTranslationX() &&
+            syncedTranslationY == sb.getTranslationY() &&
+            syncedBarValue == sb.config.getBarValue() &&
+            syncedMinValue == sb.config.getMinBarValue() &&
+            syncedMaxValue == sb.config.getMaxBarValue() &&
+            syncedValueScale == sb.config.getValueScale()) {
+
+            return false;
+        }
+
+        synced = true;
+        syncedAnimating = animating;
+        syncedLeft = sb.getLeft();
+        syncedTop = sb.getTop();
+        syncedWidth = sb.getWidth();
+        syncedHeight = sb.getHeight();
+        syncedVisibility = visibility;
+        syncedControlRadius = sb.config.getControlRadius();
+        syncedControlShadowRadius = sb.config.getControlShadowRadius();
+        syncedTranslationX = sb.getTranslationX();
+        syncedTranslationY = sb.getTranslationY();
+        syncedBarValue = sb.config.getBarValue();
+        syncedMinValue = sb.config.getMinBarValue();
+        syncedMaxValue = sb.config.getMaxBarValue();
+        syncedValueScale = sb.config.getValueScale();
+
+        return true;
+    }
+
+    private float getKnobX(float barValue) {
+
+        return sb.getTranslationX() + sb.drawer.getControlX(barValue) - sb.config.getControlRadius() - sb.config.getControlShadowRadius();
+    }
+
+    /**
+     * Knob view drawn on its own software layer so the shadow
+     * is rasterized once and only the layer moves afterwards.
+     */
+    private static class Knob extends View {
+
+        private final SuperBar sb;
+
+        private final SuperBarPainter paint;
+
+        private int color;
+        private int radius;
+        private int shadowRadius;
+        private int shadowColor;
+
+        Knob(Context context, SuperBar superBar) {
+            super(context);
+
+            this.sb = superBar;
+            this.paint = new SuperBarPainter(this);
+
+            setLayerType(View.LAYER_TYPE_SOFTWARE, null);
+        }
+
+        /**
+         * Redraw the knob only if its style changed.
+         */
+        void update() {
+
+            if (color != sb.config.getControlColor() ||
+                radius != sb.config.getControlRadius() ||
+                shadowRadius != sb.config.getControlShadowRadius() ||
+                shadowColor != sb.config.getControlShadowColor()) {
+
+                invalidate();
+            }
+        }
+
+        @Override
+        protected void onDraw(Canvas canvas) {
+
+            color = sb.config.getControlColor();
+            radius = sb.config.getControlRadius();
+            shadowRadius = sb.config.getControlShadowRadius();
+            shadowColor = sb.config.getControlShadowColor();
+
+            paint.setColor(color, shadowRadius, shadowColor);
+
+            canvas.drawCircle(getWidth() / 2f, getHeight() / 2f, radius, paint);
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.miguelgaeta.super_bar;
 
+import android.graphics.Color;
 import android.graphics.Paint;
+import android.graphics.Shader;
 import android.view.View;
 
 /**
@@ -60,6 +62,19 @@ class SuperBarPainter extends Paint {
             }
         }
 
+        setShader(null);
+
         super.setColor(color);
     }
+
+    /**
+     * Fill with a gradient shader instead of a solid color.
+     *
+     * @param shader Target shader.
+     */
+    void setGradient(Shader shader) {
+
+        setColor(Color.BLACK);
+        setShader(shader);
+    }
 }
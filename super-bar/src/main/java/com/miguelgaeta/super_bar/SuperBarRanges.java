@@ -0,0 +1,195 @@
+package com.miguelgaeta.super_bar;
+
+import java.util.Arrays;
+
+/**
+ * Sorted set of disjoint value ranges stored in primitive
+ * arrays, overlapping or touching ranges are merged on insert.
+ */
+class SuperBarRanges {
+
+    private float[] starts = new float[8];
+    private float[] ends = new float[8];
+
+    private int size;
+
+    private int version;
+
+    private float changedStart;
+    private float changedEnd;
+
+    /**
+     * Insert a range, merging it with any range it overlaps.
+     *
+     * @param start Range start.
+     * @param end Range end.
+     *
+     * @return True if the set changed, see {@link #getChangedStart()} and {@link #getChangedEnd()}.
+     */
+    boolean add(float start, float end) {
+
+        if (end < start) {
+
+            float swap = start;
+
+            start = end;
+            end = swap;
+        }
+
+        // First range that ends at or after the new start.
+        int first = search(ends, start);
+
+        // Last range that starts at or before the new end.
+        int last = search(starts, end);
+
+        while (last < size && starts[last] <= end) {
+            last++;
+        }
+
+        last--;
+
+        if (first > last) {
+
+            ensureCapacity(size + 1);
+
+            System.arraycopy(starts, first, starts, first + 1, size - first);
+            System.arraycopy(ends, first, ends, first + 1, size - first);
+
+            starts[first] = start;
+            ends[first] = end;
+
+            size++;
+
+        } else {
+
+            if (first == last && starts[first] <= start && ends[first] >= end) {
+
+                return false;
+            }
+
+            start = Math.min(start, starts[first]);
+            end = Math.max(end, ends[last]);
+
+            starts[first] = start;
+            ends[first] = end;
+
+            int removed = last - first;
+
+            System.arraycopy(starts, last + 1, starts, first + 1, size - last - 1);
+            System.arraycopy(ends, last + 1, ends, first + 1, size - last - 1);
+
+            size -= removed;
+        }
+
+        changedStart = start;
+        changedEnd = end;
+
+        version++;
+
+        return true;
+    }
+
+    /**
+     * Remove every range.
+     *
+     * @return True if the set changed, see {@link #getChangedStart()} and {@link #getChangedEnd()}.
+     */
+    boolean clear() {
+
+        if (size == 0) {
+
+            return false;
+        }
+
+        changedStart = starts[0];
+        changedEnd = ends[size - 1];
+
+        size = 0;
+
+        version++;
+
+        return true;
+    }
+
+    int size() {
+
+        return size;
+    }
+
+    float getStart(int index) {
+
+        return starts[index];
+    }
+
+    float getEnd(int index) {
+
+        return ends[index];
+    }
+
+    /**
+     * Incremented on every change so cached geometry
+     * can tell when it needs to be rebuilt.
+     */
+    int getVersion() {
+
+        return version;
+    }
+
+    float getChangedStart() {
+
+        return changedStart;
+    }
+
+    float getChangedEnd() {
+
+        return changedEnd;
+    }
+
+    /**
+     * @return Flattened start and end pairs.
+     */
+    float[] toArray() {
+
+        final float[] ranges = new float[size * 2];
+
+        for (int i = 0; i < size; i++) {
+
+            ranges[i * 2] = starts[i];
+            ranges[i * 2 + 1] = ends[i];
+        }
+
+        return ranges;
+    }
+
+    /**
+     * Index of the first element not less than the value.
+     */
+    private int search(float[] values, float value) {
+
+        int low = 0;
+        int high = size;
+
+        while (low < high) {
+
+            int mid = (low + high) >>> 1;
+
+            if (values[mid] < value) {
+
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        return low;
+    }
+
+    private void ensureCapacity(int capacity) {
+
+        if (capacity > starts.length) {
+
+            starts = Arrays.copyOf(starts, capacity * 2);
+            ends = Arrays.copyOf(ends, capacity * 2);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.miguelgaeta.super_bar;
+
+import java.util.Arrays;
+
+/**
+ * Renderer that records every command as a line of text instead
+ * of drawing, plain java so frames can be captured and compared
+ * on a desktop jvm for profiling and golden output checks.
+ */
+class SuperBarRecordingRenderer implements SuperBarRenderer {
+
+    private final StringBuilder commands = new StringBuilder();
+
+    private int commandCount;
+
+    private float clipLeft = Float.NEGATIVE_INFINITY;
+    private float clipRight = Float.POSITIVE_INFINITY;
+
+    /**
+     * Limit the recorded frame to a horizontal region, like a
+     * partial invalidation would on a canvas. Spans are cut to the
+     * region and knobs outside of it are rejected.
+     */
+    void setClip(float clipLeft, float clipRight) {
+
+        this.clipLeft = clipLeft;
+        this.clipRight = clipRight;
+    }
+
+    void reset() {
+
+        commands.setLength(0);
+
+        commandCount = 0;
+    }
+
+    int getCommandCount() {
+
+        return commandCount;
+    }
+
+    @Override
+    public void setTrack(float left, float top, float right, float bottom) {
+
+        record("track " + left + " " + top + " " + right + " " + bottom);
+    }
+
+    @Override
+    public void setFill(int layer, int color, SuperBarGradient gradient) {
+
+        if (gradient != null) {
+
+            record("fill " + layer + " gradient " + Arrays.toString(gradient.getColors()) + " " + Arrays.toString(gradient.getPositions()));
+        } else {
+
+            record("fill " + layer + " #" + Integer.toHexString(color));
+        }
+    }
+
+    @Override
+    public void drawSpan(float spanLeft, float spanRight) {
+
+        spanLeft = Math.max(clipLeft, spanLeft);
+        spanRight = Math.min(clipRight, spanRight);
+
+        if (spanRight > spanLeft) {
+
+            record("span " + spanLeft + " " + spanRight);
+        }
+    }
+
+    @Override
+    public void drawSpans(SuperBarSpans spans, float clipLeft, float clipRight) {
+
+        for (int i = 0; i < spans.size(); i++) {
+
+            float spanLeft = Math.max(clipLeft, spans.getLeft(i));
+            float spanRight = Math.min(clipRight, spans.getRight(i));
+
+            drawSpan(spanLeft, spanRight);
+        }
+    }
+
+    @Override
+    public boolean quickReject(float left, float top, float right, float bottom) {
+
+        return right <= clipLeft || left >= clipRight;
+    }
+
+    @Override
+    public void drawCircle(float centerX, float centerY, float radius, int color, int shadowRadius, int shadowColor) {
+
+        record("circle " + centerX + " " + centerY + " " + radius + " #" + Integer.toHexString(color) +
+            " shadow " + shadowRadius + " #" + Integer.toHexString(shadowColor));
+    }
+
+    private void record(String command) {
+
+        commands.append(command).append('\n');
+
+        commandCount++;
+    }
+
+    /**
+     * @return Every recorded command, one per line.
+     */
+    @Override
+    public String toString() {
+
+        return commands.toString();
+    }
+}
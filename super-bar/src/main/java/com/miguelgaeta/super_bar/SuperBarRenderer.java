@@ -0,0 +1,46 @@
+package com.miguelgaeta.super_bar;
+
+/**
+ * Drawing commands the drawer emits for a frame, kept free of
+ * any android graphics types so the draw logic can be recorded
+ * and inspected outside of a device.
+ */
+interface SuperBarRenderer {
+
+    int LAYER_BAR = 0;
+    int LAYER_BACKGROUND = 1;
+    int LAYER_OVERLAY = 2;
+    int LAYER_BUFFERED = 3;
+
+    /**
+     * Bounds of the rounded track every span is cut from,
+     * the end caps have a radius of half the height.
+     */
+    void setTrack(float left, float top, float right, float bottom);
+
+    /**
+     * Fill used by the following span commands.
+     *
+     * @param layer Layer being filled, one of the layer constants.
+     * @param color Solid color, ignored with a gradient.
+     * @param gradient Gradient across the track or null.
+     */
+    void setFill(int layer, int color, SuperBarGradient gradient);
+
+    /**
+     * Fill a horizontal span of the track.
+     */
+    void drawSpan(float spanLeft, float spanRight);
+
+    /**
+     * Fill a batch of spans, only the parts inside the clip are drawn.
+     */
+    void drawSpans(SuperBarSpans spans, float clipLeft, float clipRight);
+
+    /**
+     * @return True if nothing inside the bounds would be drawn this frame.
+     */
+    boolean quickReject(float left, float top, float right, float bottom);
+
+    void drawCircle(float centerX, float centerY, float radius, int color, int shadowRadius, int shadowColor);
+}
@@ -0,0 +1,126 @@
+package com.miguelgaeta.super_bar;
+
+/**
+ * Precomputed value lookup for every pixel along the bar so
+ * any value scale costs the same as a linear one per touch
+ * and per frame.
+ */
+class SuperBarScaleTable {
+
+    private SuperBar.ValueScale scale;
+
+    private float minValue;
+    private float maxValue;
+
+    private float[] values = new float[0];
+
+    private int resolution;
+
+    /**
+     * Rebuild the table if the scale, bounds or pixel
+     * resolution changed since the last call.
+     *
+     * @param scale Value scale.
+     * @param minValue Minimum value.
+     * @param maxValue Maximum value.
+     * @param resolution Number of pixels along the bar.
+     *
+     * @return True if the table was rebuilt.
+     */
+    boolean update(SuperBar.ValueScale scale, float minValue, float maxValue, int resolution) {
+
+        resolution = Math.max(1, resolution);
+
+        if (this.scale == scale &&
+            this.minValue == minValue &&
+            this.maxValue == maxValue &&
+            this.resolution == resolution) {
+
+            return false;
+        }
+
+        this.scale = scale;
+        this.minValue = minValue;
+        this.maxValue = maxValue;
+        this.resolution = resolution;
+
+        if (values.length != resolution + 1) {
+
+            values = new float[resolution + 1];
+        }
+
+        for (int i = 0; i <= resolution; i++) {
+
+            values[i] = scale.getValue(i / (float)resolution, minValue, maxValue);
+        }
+
+        return true;
+    }
+
+    /**
+     * Relative position along the bar for a value, found
+     * by binary search of the table.
+     *
+     * @param value Bar value.
+     *
+     * @return Relative position from 0 to 1.
+     */
+    float getFraction(float value) {
+
+        if (value <= values[0]) {
+
+            return 0f;
+        }
+
+        if (value >= values[resolution]) {
+
+            return 1f;
+        }
+
+        int low = 0;
+        int high = resolution;
+
+        while (high - low > 1) {
+
+            int mid = (low + high) >>> 1;
+
+            if (values[mid] <= value) {
+
+                low = mid;
+            } else {
+                high = mid;
+            }
+        }
+
+        float span = values[high] - values[low];
+        float offset = span > 0f ? (value - values[low]) / span : 0f;
+
+        return (low + offset) / resolution;
+    }
+
+    /**
+     * Value at a relative position along the bar.
+     *
+     * @param fraction Relative position from 0 to 1.
+     *
+     * @return Bar value.
+     */
+    float getValue(float fraction) {
+
+        if (fraction <= 0f) {
+
+            return values[0];
+        }
+
+        if (fraction >= 1f) {
+
+            return values[resolution];
+        }
+
+        float position = fraction * resolution;
+
+        int index = (int)position;
+
+        return values[index] + (values[index + 1] - values[index]) * (position - index);
+    }
+}
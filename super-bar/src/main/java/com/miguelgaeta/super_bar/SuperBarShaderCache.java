@@ -0,0 +1,121 @@
+package com.miguelgaeta.super_bar;
+
+import android.graphics.LinearGradient;
+import android.graphics.Shader;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Caches gradient shaders by track bounds and color stops
+ * so they are shared across frames and across bars.
+ */
+class SuperBarShaderCache {
+
+    private static final int MAX_SIZE = 32;
+
+    private static final Map<Key, Shader> cache = new LinkedHashMap<Key, Shader>(MAX_SIZE, 0.75f, true) {
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Shader> eldest) {
+
+            return size() > MAX_SIZE;
+        }
+    };
+
+    /**
+     * Fetch or create the shared shader for a gradient
+     * spanning the given horizontal bounds.
+     *
+     * @param gradient Gradient description.
+     * @param left Left edge of the track.
+     * @param right Right edge of the track.
+     *
+     * @return Shared shader instance.
+     */
+    static Shader get(SuperBarGradient gradient, float left, float right) {
+
+        final Key key = new Key(gradient, left, right);
+
+        synchronized (cache) {
+
+            Shader shader = cache.get(key);
+
+            if (shader == null) {
+
+                shader = new LinearGradient(left, 0f, right, 0f,
+                    gradient.getColors(),
+                    gradient.getPositions(),
+                    Shader.TileMode.CLAMP);
+
+                cache.put(key, shader);
+            }
+
+            return shader;
+        }
+    }
+
+    /**
+     * Per bar memo of the last shader handed out so steady
+     * state frames skip the shared lookup entirely.
+     */
+    static class Slot {
+
+        private SuperBarGradient gradient;
+
+        private float left;
+        private float right;
+
+        private Shader shader;
+
+        Shader get(SuperBarGradient gradient, float left, float right) {
+
+            if (shader == null ||
+                this.left != left ||
+                this.right != right ||
+                !this.gradient.equals(gradient)) {
+
+                this.gradient = gradient;
+                this.left = left;
+                this.right = right;
+                this.shader = SuperBarShaderCache.get(gradient, left, right);
+            }
+
+            return shader;
+        }
+    }
+
+    private static class Key {
+
+        private final SuperBarGradient gradient;
+
+        private final float left;
+        private final float right;
+
+        Key(SuperBarGradient gradient, float left, float right) {
+
+            this.gradient = gradient;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+
+            if (!(o instanceof Key)) {
+
+                return false;
+            }
+
+            final Key that = (Key)o;
+
+            return left == that.left && right == that.right && gradient.equals(that.gradient);
+        }
+
+        @Override
+        public int hashCode() {
+
+            return 31 * (31 * gradient.hashCode() + Float.floatToIntBits(left)) + Float.floatToIntBits(right);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.miguelgaeta.super_bar;
+
+import java.util.Arrays;
+
+/**
+ * Horizontal spans of the track that are drawn with one fill,
+ * stored as left and right pairs in a primitive array.
+ */
+class SuperBarSpans {
+
+    private float[] spans = new float[8];
+    private int count;
+
+    private int version;
+
+    void reset() {
+
+        count = 0;
+
+        version++;
+    }
+
+    void add(float spanLeft, float spanRight) {
+
+        if (spanRight <= spanLeft) {
+
+            return;
+        }
+
+        if (count + 2 > spans.length) {
+            spans = Arrays.copyOf(spans, spans.length * 2);
+        }
+
+        spans[count++] = spanLeft;
+        spans[count++] = spanRight;
+
+        version++;
+    }
+
+    int size() {
+
+        return count / 2;
+    }
+
+    float getLeft(int index) {
+
+        return spans[index * 2];
+    }
+
+    float getRight(int index) {
+
+        return spans[index * 2 + 1];
+    }
+
+    /**
+     * @return Counter bumped on every change so renderers can cache derived paths.
+     */
+    int getVersion() {
+
+        return version;
+    }
+}
@@ -0,0 +1,149 @@
+package com.miguelgaeta.super_bar;
+
+import java.util.Arrays;
+
+/**
+ * Sorted thumb values of a multi thumb bar stored in a
+ * primitive array, thumbs never cross each other.
+ */
+class SuperBarThumbs {
+
+    private float[] values = new float[0];
+
+    private int activeIndex = -1;
+
+    /**
+     * Replace every thumb, values are sorted and clamped to bounds.
+     */
+    void set(float[] values, float minValue, float maxValue) {
+
+        this.values = values.clone();
+
+        for (int i = 0; i < this.values.length; i++) {
+
+            this.values[i] = Math.max(minValue, Math.min(maxValue, this.values[i]));
+        }
+
+        Arrays.sort(this.values);
+
+        activeIndex = -1;
+    }
+
+    int size() {
+
+        return values.length;
+    }
+
+    float get(int index) {
+
+        return values[index];
+    }
+
+    float[] toArray() {
+
+        return values.clone();
+    }
+
+    /**
+     * Index of the thumb closest to a value, thumbs sharing that
+     * value are told apart by the direction of the touch so the
+     * picked one is free to move that way.
+     *
+     * @param value Bar value.
+     * @param direction Horizontal touch direction, zero if not known yet.
+     *
+     * @return Thumb index or -1 if there are no thumbs or the direction is needed but not known.
+     */
+    int nearest(float value, float direction) {
+
+        final int index = nearest(value);
+
+        if (index < 0) {
+
+            return -1;
+        }
+
+        int first = index;
+        int last = index;
+
+        while (first > 0 && values[first - 1] == values[index]) {
+            first--;
+        }
+
+        while (last < values.length - 1 && values[last + 1] == values[index]) {
+            last++;
+        }
+
+        if (first == last) {
+
+            return index;
+        }
+
+        if (direction == 0) {
+            direction = value - values[index];
+        }
+
+        return direction > 0 ? last : direction < 0 ? first : -1;
+    }
+
+    private int nearest(float value) {
+
+        if (values.length == 0) {
+
+            return -1;
+        }
+
+        int index = Arrays.binarySearch(values, value);
+
+        if (index >= 0) {
+
+            return index;
+        }
+
+        index = -index - 1;
+
+        if (index == 0) {
+
+            return 0;
+        }
+
+        if (index == values.length) {
+
+            return values.length - 1;
+        }
+
+        return value - values[index - 1] <= values[index] - value ? index - 1 : index;
+    }
+
+    /**
+     * Move a thumb, keeping it between its neighbours with at
+     * least the minimum separation and inside the bounds.
+     *
+     * @return The value the thumb ended up at.
+     */
+    float move(int index, float value, float minSeparation, float minValue, float maxValue) {
+
+        float lower = index > 0 ? values[index - 1] + minSeparation : minValue;
+        float upper = index < values.length - 1 ? values[index + 1] - minSeparation : maxValue;
+
+        lower = Math.max(lower, minValue);
+        upper = Math.min(upper, maxValue);
+
+        if (lower <= upper) {
+
+            values[index] = Math.max(lower, Math.min(upper, value));
+        }
+
+        return values[index];
+    }
+
+    int getActiveIndex() {
+
+        return activeIndex;
+    }
+
+    void setActiveIndex(int activeIndex) {
+
+        this.activeIndex = activeIndex;
+    }
+}
@@ -0,0 +1,224 @@
+package com.miguelgaeta.super_bar;
+
+import android.view.MotionEvent;
+import android.view.ViewConfiguration;
+import android.view.ViewGroup;
+import android.view.ViewParent;
+
+/**
+ * Turns touches into bar and thumb value changes, arbitrating
+ * the gesture with scrolling parents by touch slop.
+ */
+class SuperBarTouch {
+
+    private final SuperBar sb;
+
+    private int touchSlop = -1;
+
+    private float touchDownX;
+    private float touchDownY;
+
+    private boolean dragging;
+
+    SuperBarTouch(SuperBar superBar) {
+
+        this.sb = superBar;
+    }
+
+    public boolean onTouchEvent(MotionEvent motionEvent) {
+
+        if (sb.config.getGestureDetector() != null &&
+            sb.config.getGestureDetector().onTouchEvent(motionEvent)) {
+
+            return true;
+        }
+
+        switch (motionEvent.getActionMasked()) {
+
+            case MotionEvent.ACTION_DOWN:
+
+                if (touchSlop < 0) {
+                    touchSlop = ViewConfiguration.get(sb.getContext()).getScaledTouchSlop();
+                }
+
+                touchDownX = motionEvent.getX();
+                touchDownY = motionEvent.getY();
+
+                dragging = false;
+
+                // Outside of scrolling containers there is nothing
+                // to arbitrate with so claim the gesture right away.
+                if (sb.config.isTapToJumpEnabled() && !isInScrollingContainer()) {
+
+                    startDragging();
+
+                    pickThumb(0);
+
+                    updateBarValue(motionEvent.getX());
+                }
+
+                break;
+
+            case MotionEvent.ACTION_MOVE:
+
+                if (!dragging) {
+
+                    float deltaX = Math.abs(motionEvent.getX() - touchDownX);
+                    float deltaY = Math.abs(motionEvent.getY() - touchDownY);
+
+                    if (deltaX <= touchSlop || deltaX <= deltaY) {
+
+                        // Not ours yet, vertical gestures are left to the parent.
+                        break;
+                    }
+
+                    startDragging();
+                }
+
+                pickThumb(motionEvent.getX() - touchDownX);
+
+                updateBarValue(motionEvent.getX());
+
+                if (sb.config.getOnSelectionMoved() != null) {
+                    sb.config.getOnSelectionMoved().onSelectionMoved(
+                        getSelectionValue(),
+                        sb.config.getMaxBarValue(),
+                        sb.config.getMinBarValue(), sb);
+                }
+
+                break;
+
+            case MotionEvent.ACTION_UP:
+
+                boolean tapped = !dragging &&
+                    sb.config.isTapToJumpEnabled() &&
+                    Math.abs(motionEvent.getX() - touchDownX) <= touchSlop &&
+                    Math.abs(motionEvent.getY() - touchDownY) <= touchSlop;
+
+                if (dragging || tapped) {
+
+                    pickThumb(0);
+
+                    updateBarValue(motionEvent.getX());
+                }
+
+                // Thumb bars only report the thumb that was moved.
+                if ((dragging || tapped) && (sb.config.getThumbs().size() == 0 || sb.config.getThumbs().getActiveIndex() >= 0)) {
+
+                    if (sb.config.getOnSelectionChanged() != null) {
+                        sb.config.getOnSelectionChanged().onSelectionChanged(
+                            getSelectionValue(),
+                            sb.config.getMaxBarValue(),
+                            sb.config.getMinBarValue(), sb);
+                    }
+                }
+
+                stopDragging();
+
+                break;
+
+            case MotionEvent.ACTION_CANCEL:
+
+                stopDragging();
+
+                break;
+        }
+
+        return true;
+    }
+
+    /**
+     * Claim the gesture so scrolling parents stop intercepting it.
+     */
+    private void startDragging() {
+
+        dragging = true;
+
+        if (sb.getParent() != null) {
+            sb.getParent().requestDisallowInterceptTouchEvent(true);
+        }
+    }
+
+    /**
+     * Pick the thumb nearest to where the touch went down, if thumbs
+     * share that value none is picked until the direction is known.
+     *
+     * @param direction Horizontal touch direction, zero for taps.
+     */
+    private void pickThumb(float direction) {
+
+        final SuperBarThumbs thumbs = sb.config.getThumbs();
+
+        if (thumbs.size() > 0 && thumbs.getActiveIndex() < 0) {
+
+            thumbs.setActiveIndex(thumbs.nearest(sb.drawer.getTouchValue(touchDownX), direction));
+        }
+    }
+
+    private void stopDragging() {
+
+        if (dragging && sb.getParent() != null) {
+            sb.getParent().requestDisallowInterceptTouchEvent(false);
+        }
+
+        if (dragging) {
+
+            sb.accessibility.onValueSettled();
+        }
+
+        dragging = false;
+
+        sb.config.getThumbs().setActiveIndex(-1);
+    }
+
+    /**
+     * Value reported to selection listeners, the dragged
+     * thumb on multi thumb bars.
+     */
+    private float getSelectionValue() {
+
+        final SuperBarThumbs thumbs = sb.config.getThumbs();
+
+        return thumbs.getActiveIndex() >= 0 ? thumbs.get(thumbs.getActiveIndex()) : sb.config.getBarValue();
+    }
+
+    private boolean isInScrollingContainer() {
+
+        ViewParent parent = sb.getParent();
+
+        while (parent instanceof ViewGroup) {
+
+            if (((ViewGroup)parent).shouldDelayChildPressedState()) {
+
+                return true;
+            }
+
+            parent = parent.getParent();
+        }
+
+        return false;
+    }
+
+    /**
+     * Map a touch position to a bar value snapped to the bar interval,
+     * moves the dragged thumb on multi thumb bars and only invalidates
+     * if the value changed.
+     *
+     * @param touchX Touch position.
+     */
+    private void updateBarValue(float touchX) {
+
+        float barValue = sb.drawer.getTouchValue(touchX);
+
+        final SuperBarThumbs thumbs = sb.config.getThumbs();
+
+        if (thumbs.getActiveIndex() >= 0) {
+
+            sb.config.setThumbValue(thumbs.getActiveIndex(), barValue);
+
+        } else if (thumbs.size() == 0 && barValue != sb.config.getBarValue()) {
+
+            sb.config.setBarValue(null, barValue);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.miguelgaeta.super_bar;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Golden output of whole frames recorded on the jvm, a change in
+ * any of these means the bar renders differently on device.
+ */
+public class SuperBarGeometryTest {
+
+    private final SuperBarGeometry geometry = new SuperBarGeometry();
+
+    private final SuperBarRecordingRenderer renderer = new SuperBarRecordingRenderer();
+
+    private SuperBarGeometry.Snapshot snapshot;
+
+    @Before
+    public void setUp() {
+
+        snapshot = new SuperBarGeometry.Snapshot();
+        snapshot.width = 204;
+        snapshot.height = 20;
+        snapshot.barHeight = 10;
+        snapshot.barColor = 0xff0000ff;
+        snapshot.overlayColor = 0xffff0000;
+        snapshot.backgroundColor = 0xff00ff00;
+        snapshot.bufferedRangeColor = 0xffcccccc;
+        snapshot.controlRadius = 8;
+        snapshot.controlShadowRadius = 2;
+        snapshot.controlColor = 0xffffffff;
+        snapshot.controlShadowColor = 0x7f000000;
+    }
+
+    @Test
+    public void drawsValueAndOverlay() {
+
+        snapshot.barValue = 40;
+        snapshot.overlayValue = 80;
+
+        geometry.draw(renderer, snapshot);
+
+        assertEquals(
+            "track 2.0 5.0 202.0 15.0\n" +
+            "fill 1 #ff00ff00\n" +
+            "fill 0 #ff0000ff\n" +
+            "span 2.0 82.0\n" +
+            "fill 1 #ff00ff00\n" +
+            "span 82.0 162.0\n" +
+            "fill 2 #ffff0000\n" +
+            "span 162.0 202.0\n" +
+            "circle 84.0 10.0 8.0 #ffffffff shadow 2 #7f000000\n",
+            renderer.toString());
+    }
+
+    @Test
+    public void skipsControlDrawnByKnobLayer() {
+
+        snapshot.barValue = 40;
+        snapshot.overlayValue = 80;
+        snapshot.controlDrawn = false;
+
+        geometry.draw(renderer, snapshot);
+
+        assertFalse(renderer.toString().contains("circle"));
+    }
+
+    @Test
+    public void drawsThumbRange() {
+
+        snapshot.overlayValue = 100;
+        snapshot.thumbs.set(new float[] {60, 20}, 0, 100);
+
+        geometry.draw(renderer, snapshot);
+
+        assertEquals(
+            "track 2.0 5.0 202.0 15.0\n" +
+            "fill 1 #ff00ff00\n" +
+            "span 2.0 42.0\n" +
+            "fill 0 #ff0000ff\n" +
+            "span 42.0 122.0\n" +
+            "fill 1 #ff00ff00\n" +
+            "span 122.0 202.0\n" +
+            "fill 2 #ffff0000\n" +
+            "circle 47.0 10.0 8.0 #ffffffff shadow 2 #7f000000\n" +
+            "circle 120.0 10.0 8.0 #ffffffff shadow 2 #7f000000\n",
+            renderer.toString());
+    }
+
+    @Test
+    public void partialRedrawSkipsThumbsOutsideClip() {
+
+        snapshot.overlayValue = 100;
+        snapshot.thumbs.set(new float[] {20, 60}, 0, 100);
+
+        renderer.setClip(100, 140);
+
+        geometry.draw(renderer, snapshot);
+
+        assertEquals(
+            "track 2.0 5.0 202.0 15.0\n" +
+            "fill 1 #ff00ff00\n" +
+            "fill 0 #ff0000ff\n" +
+            "span 100.0 122.0\n" +
+            "fill 1 #ff00ff00\n" +
+            "span 122.0 140.0\n" +
+            "fill 2 #ffff0000\n" +
+            "circle 120.0 10.0 8.0 #ffffffff shadow 2 #7f000000\n",
+            renderer.toString());
+    }
+
+    @Test
+    public void drawsBufferedRanges() {
+
+        snapshot.barValue = 20;
+        snapshot.overlayValue = 90;
+        snapshot.ranges.add(10, 30);
+        snapshot.ranges.add(50, 70);
+
+        geometry.draw(renderer, snapshot);
+
+        assertEquals(
+            "track 2.0 5.0 202.0 15.0\n" +
+            "fill 1 #ff00ff00\n" +
+            "fill 3 #ffcccccc\n" +
+            "fill 0 #ff0000ff\n" +
+            "span 2.0 42.0\n" +
+            "fill 1 #ff00ff00\n" +
+            "span 62.0 102.0\n" +
+            "span 142.0 182.0\n" +
+            "fill 3 #ffcccccc\n" +
+            "span 42.0 62.0\n" +
+            "span 102.0 142.0\n" +
+            "fill 2 #ffff0000\n" +
+            "span 182.0 202.0\n" +
+            "circle 47.0 10.0 8.0 #ffffffff shadow 2 #7f000000\n",
+            renderer.toString());
+    }
+
+    @Test
+    public void subPixelChangesDoNotRender() {
+
+        snapshot.maxValue = 1000000;
+        snapshot.barValue = 500000;
+        snapshot.overlayValue = 1000000;
+
+        assertTrue(geometry.hasRenderedChange(snapshot));
+
+        geometry.draw(renderer, snapshot);
+
+        assertFalse(geometry.hasRenderedChange(snapshot));
+
+        snapshot.barValue += 1000;
+
+        assertFalse(geometry.hasRenderedChange(snapshot));
+
+        snapshot.barValue += 10000;
+
+        assertTrue(geometry.hasRenderedChange(snapshot));
+    }
+
+    @Test
+    public void colorChangesRender() {
+
+        geometry.draw(renderer, snapshot);
+
+        snapshot.barColor = 0xff123456;
+
+        assertTrue(geometry.hasRenderedChange(snapshot));
+    }
+
+    @Test
+    public void styleChangesRender() {
+
+        geometry.draw(renderer, snapshot);
+
+        snapshot.backgroundColor = 0xff123456;
+
+        assertTrue(geometry.hasRenderedChange(snapshot));
+
+        geometry.draw(renderer, snapshot);
+
+        snapshot.controlRadius = 6;
+
+        assertTrue(geometry.hasRenderedChange(snapshot));
+
+        geometry.draw(renderer, snapshot);
+
+        snapshot.barHeight = 4;
+
+        assertTrue(geometry.hasRenderedChange(snapshot));
+    }
+
+    @Test
+    public void touchValueSnapsToInterval() {
+
+        snapshot.barInterval = 5;
+
+        assertEquals(0f, geometry.getTouchValue(snapshot, -10), 0f);
+        assertEquals(100f, geometry.getTouchValue(snapshot, 300), 0f);
+        assertEquals(50f, geometry.getTouchValue(snapshot, 103), 0f);
+    }
+}
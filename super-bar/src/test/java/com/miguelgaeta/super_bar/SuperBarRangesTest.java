@@ -0,0 +1,93 @@
+package com.miguelgaeta.super_bar;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SuperBarRangesTest {
+
+    @Test
+    public void addKeepsRangesSorted() {
+
+        final SuperBarRanges ranges = new SuperBarRanges();
+
+        ranges.add(50, 60);
+        ranges.add(10, 20);
+        ranges.add(30, 40);
+
+        assertArrayEquals(new float[] {10, 20, 30, 40, 50, 60}, ranges.toArray(), 0f);
+    }
+
+    @Test
+    public void addMergesOverlappingAndTouchingRanges() {
+
+        final SuperBarRanges ranges = new SuperBarRanges();
+
+        ranges.add(10, 20);
+        ranges.add(30, 40);
+        ranges.add(50, 60);
+
+        assertTrue(ranges.add(20, 50));
+
+        assertArrayEquals(new float[] {10, 60}, ranges.toArray(), 0f);
+        assertEquals(10f, ranges.getChangedStart(), 0f);
+        assertEquals(60f, ranges.getChangedEnd(), 0f);
+    }
+
+    @Test
+    public void addSwapsReversedBounds() {
+
+        final SuperBarRanges ranges = new SuperBarRanges();
+
+        ranges.add(40, 30);
+
+        assertArrayEquals(new float[] {30, 40}, ranges.toArray(), 0f);
+    }
+
+    @Test
+    public void addInsideExistingRangeChangesNothing() {
+
+        final SuperBarRanges ranges = new SuperBarRanges();
+
+        ranges.add(10, 50);
+
+        final int version = ranges.getVersion();
+
+        assertFalse(ranges.add(20, 30));
+        assertEquals(version, ranges.getVersion());
+    }
+
+    @Test
+    public void addGrowsPastInitialCapacity() {
+
+        final SuperBarRanges ranges = new SuperBarRanges();
+
+        for (int i = 0; i < 20; i++) {
+
+            ranges.add(i * 10, i * 10 + 5);
+        }
+
+        assertEquals(20, ranges.size());
+        assertEquals(190f, ranges.getStart(19), 0f);
+        assertEquals(195f, ranges.getEnd(19), 0f);
+    }
+
+    @Test
+    public void clearReportsRemovedSpan() {
+
+        final SuperBarRanges ranges = new SuperBarRanges();
+
+        assertFalse(ranges.clear());
+
+        ranges.add(10, 20);
+        ranges.add(70, 80);
+
+        assertTrue(ranges.clear());
+        assertEquals(0, ranges.size());
+        assertEquals(10f, ranges.getChangedStart(), 0f);
+        assertEquals(80f, ranges.getChangedEnd(), 0f);
+    }
+}
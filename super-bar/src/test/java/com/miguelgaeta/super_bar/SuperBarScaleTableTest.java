@@ -0,0 +1,58 @@
+package com.miguelgaeta.super_bar;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SuperBarScaleTableTest {
+
+    @Test
+    public void updateOnlyRebuildsOnChange() {
+
+        final SuperBarScaleTable table = new SuperBarScaleTable();
+
+        final SuperBar.ValueScale scale = new SuperBar.ValueScale.Linear();
+
+        assertTrue(table.update(scale, 0, 100, 200));
+        assertFalse(table.update(scale, 0, 100, 200));
+        assertTrue(table.update(scale, 0, 100, 300));
+        assertTrue(table.update(scale, 0, 50, 300));
+    }
+
+    @Test
+    public void linearScaleRoundTrips() {
+
+        final SuperBarScaleTable table = new SuperBarScaleTable();
+
+        table.update(new SuperBar.ValueScale.Linear(), 0, 100, 200);
+
+        assertEquals(0.25f, table.getFraction(25), 1e-5f);
+        assertEquals(25f, table.getValue(0.25f), 1e-4f);
+        assertEquals(0f, table.getFraction(-10), 0f);
+        assertEquals(1f, table.getFraction(110), 0f);
+    }
+
+    @Test
+    public void logarithmicScaleRoundTrips() {
+
+        final SuperBarScaleTable table = new SuperBarScaleTable();
+
+        table.update(new SuperBar.ValueScale.Logarithmic(), 1, 10000, 400);
+
+        assertEquals(100f, table.getValue(0.5f), 1e-2f);
+        assertEquals(0.5f, table.getFraction(100), 1e-4f);
+    }
+
+    @Test
+    public void stopsScaleFollowsPositions() {
+
+        final SuperBarScaleTable table = new SuperBarScaleTable();
+
+        table.update(new SuperBar.ValueScale.Stops(new float[] {0, 10, 100}, new float[] {0, 0.5f, 1}), 0, 100, 100);
+
+        assertEquals(10f, table.getValue(0.5f), 1e-4f);
+        assertEquals(0.75f, table.getFraction(55), 1e-4f);
+    }
+}
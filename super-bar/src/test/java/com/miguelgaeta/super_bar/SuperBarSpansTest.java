@@ -0,0 +1,46 @@
+package com.miguelgaeta.super_bar;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SuperBarSpansTest {
+
+    @Test
+    public void addSkipsEmptySpans() {
+
+        final SuperBarSpans spans = new SuperBarSpans();
+
+        spans.add(10, 10);
+        spans.add(20, 15);
+
+        assertEquals(0, spans.size());
+    }
+
+    @Test
+    public void addGrowsAndBumpsVersion() {
+
+        final SuperBarSpans spans = new SuperBarSpans();
+
+        int version = spans.getVersion();
+
+        for (int i = 0; i < 10; i++) {
+
+            spans.add(i * 10, i * 10 + 5);
+
+            assertTrue(spans.getVersion() != version);
+
+            version = spans.getVersion();
+        }
+
+        assertEquals(10, spans.size());
+        assertEquals(90f, spans.getLeft(9), 0f);
+        assertEquals(95f, spans.getRight(9), 0f);
+
+        spans.reset();
+
+        assertEquals(0, spans.size());
+        assertTrue(spans.getVersion() != version);
+    }
+}
@@ -0,0 +1,71 @@
+package com.miguelgaeta.super_bar;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class SuperBarThumbsTest {
+
+    @Test
+    public void setSortsAndClamps() {
+
+        final SuperBarThumbs thumbs = new SuperBarThumbs();
+
+        thumbs.set(new float[] {120, 40, -5}, 0, 100);
+
+        assertArrayEquals(new float[] {0, 40, 100}, thumbs.toArray(), 0f);
+    }
+
+    @Test
+    public void nearestPicksClosestThumb() {
+
+        final SuperBarThumbs thumbs = new SuperBarThumbs();
+
+        assertEquals(-1, thumbs.nearest(50, 0));
+
+        thumbs.set(new float[] {10, 60}, 0, 100);
+
+        assertEquals(0, thumbs.nearest(0, 0));
+        assertEquals(0, thumbs.nearest(30, 0));
+        assertEquals(1, thumbs.nearest(40, 0));
+        assertEquals(1, thumbs.nearest(100, 0));
+    }
+
+    @Test
+    public void nearestBreaksTiesByDirection() {
+
+        final SuperBarThumbs thumbs = new SuperBarThumbs();
+
+        thumbs.set(new float[] {50, 50}, 0, 100);
+
+        assertEquals(-1, thumbs.nearest(50, 0));
+        assertEquals(1, thumbs.nearest(50, 4));
+        assertEquals(0, thumbs.nearest(50, -4));
+        assertEquals(1, thumbs.nearest(70, 0));
+        assertEquals(0, thumbs.nearest(30, 0));
+    }
+
+    @Test
+    public void tiedThumbsCanBeWidened() {
+
+        final SuperBarThumbs thumbs = new SuperBarThumbs();
+
+        thumbs.set(new float[] {50, 50}, 0, 100);
+
+        assertEquals(80f, thumbs.move(thumbs.nearest(50, 1), 80, 0, 0, 100), 0f);
+        assertArrayEquals(new float[] {50, 80}, thumbs.toArray(), 0f);
+    }
+
+    @Test
+    public void moveNeverCrossesNeighbours() {
+
+        final SuperBarThumbs thumbs = new SuperBarThumbs();
+
+        thumbs.set(new float[] {20, 40, 60}, 0, 100);
+
+        assertEquals(35f, thumbs.move(1, 10, 15, 0, 100), 0f);
+        assertEquals(45f, thumbs.move(1, 90, 15, 0, 100), 0f);
+        assertEquals(100f, thumbs.move(2, 150, 15, 0, 100), 0f);
+    }
+}